@@ -0,0 +1,61 @@
+package com.graphit.algorithms;
+
+import com.graphit.models.CompiledGraph;
+
+/**
+ * A* search guided by the straight-line distance between node positions.
+ *
+ * The heuristic is the Euclidean distance to the target scaled by
+ * {@link CompiledGraph#heuristicScale()}, which keeps it consistent for any
+ * non-negative weights. When positions do not bound the weights the scale is
+ * zero and the search degrades to plain Dijkstra.
+ */
+public final class AStar {
+
+    private AStar() {
+    }
+
+    public static ShortestPathTree run(CompiledGraph g, int source, int target) {
+        return run(g, source, target, null);
+    }
+
+    /** Same search, reporting each settled node and each improved distance to listener. */
+    public static ShortestPathTree run(CompiledGraph g, int source, int target, TraversalListener listener) {
+        double scale = g.heuristicScale();
+        if (scale <= 0) {
+            return Dijkstra.run(g, source, target, listener);
+        }
+
+        ShortestPathTree tree = new ShortestPathTree(g.nodeCount());
+        long[] dist = tree.distances;
+        IndexedDaryHeap heap = new IndexedDaryHeap(g.nodeCount());
+
+        dist[source] = 0;
+        heap.offer(source, estimate(g, scale, source, target));
+
+        while (!heap.isEmpty()) {
+            int u = heap.poll();
+            if (listener != null) listener.visit(u, tree.predEdges[u]);
+            if (u == target) {
+                break;
+            }
+            long du = dist[u];
+            for (int p = g.pairStart(u), end = g.pairEnd(u); p < end; p++) {
+                int v = g.pairTarget(p);
+                long alt = du + g.pairWeight(p);
+                if (alt < dist[v] && heap.offer(v, alt + estimate(g, scale, v, target))) {
+                    dist[v] = alt;
+                    tree.predNodes[v] = u;
+                    tree.predEdges[v] = g.pairEdge(p);
+                    if (listener != null) listener.relax(v, g.pairEdge(p), alt);
+                }
+            }
+        }
+        return tree;
+    }
+
+    // rounded down, which keeps the heuristic consistent for integer weights
+    private static long estimate(CompiledGraph g, double scale, int node, int target) {
+        return (long) Math.floor(scale * g.euclidean(node, target));
+    }
+}
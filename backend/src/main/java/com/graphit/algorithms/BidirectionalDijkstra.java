@@ -0,0 +1,103 @@
+package com.graphit.algorithms;
+
+import com.graphit.models.CompiledGraph;
+import java.util.ArrayList;
+
+/**
+ * Point-to-point Dijkstra that grows one search forward from the source and
+ * one backward from the target, always expanding the side with the smaller
+ * frontier key, and stops once the two frontiers can no longer improve the
+ * best meeting found. Like one-sided Dijkstra it needs non-negative weights
+ * and rejects a graph with a negative one.
+ */
+public final class BidirectionalDijkstra {
+
+    private BidirectionalDijkstra() {
+    }
+
+    public static ArrayList<String> path(CompiledGraph g, int source, int target) {
+        if (g.hasNegativeWeights()) {
+            throw new IllegalArgumentException("Shortest paths need non-negative edge weights");
+        }
+        if (source == target) {
+            ArrayList<String> path = new ArrayList<>();
+            path.add(g.nodeId(source));
+            return path;
+        }
+
+        int n = g.nodeCount();
+        ShortestPathTree fwd = new ShortestPathTree(n);
+        ShortestPathTree bwd = new ShortestPathTree(n);
+        IndexedDaryHeap fwdHeap = new IndexedDaryHeap(n);
+        IndexedDaryHeap bwdHeap = new IndexedDaryHeap(n);
+
+        fwd.distances[source] = 0;
+        fwdHeap.offer(source, 0);
+        bwd.distances[target] = 0;
+        bwdHeap.offer(target, 0);
+
+        long best = ShortestPathTree.UNREACHED;
+        // the meeting arc: best path is source..meetFrom, meetEdge, meetTo..target
+        int meetFrom = -1;
+        int meetEdge = -1;
+        int meetTo = -1;
+
+        while (!fwdHeap.isEmpty() && !bwdHeap.isEmpty()) {
+            if (best != ShortestPathTree.UNREACHED && fwdHeap.peekKey() + bwdHeap.peekKey() >= best) {
+                break;
+            }
+            if (fwdHeap.peekKey() <= bwdHeap.peekKey()) {
+                int u = fwdHeap.poll();
+                long du = fwd.distances[u];
+                for (int p = g.pairStart(u), end = g.pairEnd(u); p < end; p++) {
+                    int v = g.pairTarget(p);
+                    long alt = du + g.pairWeight(p);
+                    if (alt < fwd.distances[v] && fwdHeap.offer(v, alt)) {
+                        fwd.distances[v] = alt;
+                        fwd.predNodes[v] = u;
+                        fwd.predEdges[v] = g.pairEdge(p);
+                    }
+                    if (bwd.reached(v) && alt + bwd.distances[v] < best) {
+                        best = alt + bwd.distances[v];
+                        meetFrom = u;
+                        meetEdge = g.pairEdge(p);
+                        meetTo = v;
+                    }
+                }
+            } else {
+                int v = bwdHeap.poll();
+                long dv = bwd.distances[v];
+                for (int a = g.inArcStart(v), end = g.inArcEnd(v); a < end; a++) {
+                    int u = g.inArcSource(a);
+                    long alt = dv + g.inArcWeight(a);
+                    if (alt < bwd.distances[u] && bwdHeap.offer(u, alt)) {
+                        bwd.distances[u] = alt;
+                        bwd.predNodes[u] = v;
+                        bwd.predEdges[u] = g.inArcEdge(a);
+                    }
+                    if (fwd.reached(u) && alt + fwd.distances[u] < best) {
+                        best = alt + fwd.distances[u];
+                        meetFrom = u;
+                        meetEdge = g.inArcEdge(a);
+                        meetTo = v;
+                    }
+                }
+            }
+        }
+
+        if (meetEdge < 0) {
+            return new ArrayList<>();
+        }
+        ArrayList<String> path = fwd.pathTo(g, meetFrom);
+        path.add(g.edgeId(meetEdge));
+        // walk the backward tree from the meeting point out to the target
+        int current = meetTo;
+        path.add(g.nodeId(current));
+        for (int steps = 0; bwd.predNodes[current] >= 0 && steps < n; steps++) {
+            path.add(g.edgeId(bwd.predEdges[current]));
+            current = bwd.predNodes[current];
+            path.add(g.nodeId(current));
+        }
+        return path;
+    }
+}
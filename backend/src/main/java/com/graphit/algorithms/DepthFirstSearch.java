@@ -0,0 +1,143 @@
+package com.graphit.algorithms;
+
+import com.graphit.models.CompiledGraph;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Iterative DFS with a primitive stack of nodes and a per-node cursor into its
+ * arcs, so the stack never holds more than one entry per node on the current
+ * path and skipped neighbors are never pushed.
+ *
+ * Discovery and finish times share one clock, as in CLRS. With classification
+ * on, every examined edge is labelled tree, back, forward or cross; undirected
+ * graphs only produce tree and back edges, and the edge leading back to a
+ * node's parent is not counted as a back edge.
+ */
+public class DepthFirstSearch {
+
+    private static final byte UNSEEN = 0;
+    private static final byte TREE = 1;
+    private static final byte BACK = 2;
+    private static final byte FORWARD = 3;
+    private static final byte CROSS = 4;
+    private static final String[] TYPE_NAMES = {null, "tree", "back", "forward", "cross"};
+
+    private final CompiledGraph g;
+    private final TraversalListener listener;
+    private final VisitedIdCollector collector;
+    private final int[] discovery;
+    private final int[] finish;
+    private final byte[] edgeTypes;
+
+    private DepthFirstSearch(CompiledGraph g, boolean classify, TraversalListener listener) {
+        this.g = g;
+        this.collector = listener == null ? new VisitedIdCollector(g) : null;
+        this.listener = listener == null ? collector : listener;
+        discovery = new int[g.nodeCount()];
+        finish = new int[g.nodeCount()];
+        edgeTypes = classify ? new byte[g.edgeCount()] : null;
+        Arrays.fill(discovery, -1);
+        Arrays.fill(finish, -1);
+    }
+
+    /**
+     * Searches from origin until a node whose value equals targetValue is discovered.
+     * Edge classification is only tracked when classify is set.
+     */
+    public static DepthFirstSearch run(CompiledGraph g, int origin, String targetValue, boolean classify) {
+        return run(g, origin, targetValue, classify, null);
+    }
+
+    /**
+     * Same search, reporting discoveries and finishes to listener as they happen.
+     * The visited IDs are then left to the listener and not collected here.
+     */
+    public static DepthFirstSearch run(CompiledGraph g, int origin, String targetValue, boolean classify, TraversalListener listener) {
+        DepthFirstSearch dfs = new DepthFirstSearch(g, classify, listener);
+        dfs.search(origin, targetValue);
+        return dfs;
+    }
+
+    private void search(int origin, String targetValue) {
+        int n = g.nodeCount();
+        long[] visited = new long[(n + 63) >>> 6];
+        int[] stack = new int[n];
+        int[] cursor = new int[n];
+        int[] parentEdge = new int[n];
+        int top = 0;
+        int clock = 0;
+
+        visited[origin >>> 6] |= 1L << origin;
+        discovery[origin] = clock++;
+        parentEdge[origin] = -1;
+        cursor[origin] = g.arcStart(origin);
+        listener.visit(origin, -1);
+        if (targetValue.equals(g.nodeValue(origin))) return;
+        stack[top++] = origin;
+
+        while (top > 0) {
+            int u = stack[top - 1];
+            if (cursor[u] == g.arcEnd(u)) {
+                finish[u] = clock++;
+                listener.finish(u);
+                top--;
+                continue;
+            }
+            int a = cursor[u]++;
+            int v = g.arcTarget(a);
+            int e = g.arcEdge(a);
+
+            if ((visited[v >>> 6] & (1L << v)) == 0) {
+                visited[v >>> 6] |= 1L << v;
+                discovery[v] = clock++;
+                parentEdge[v] = e;
+                cursor[v] = g.arcStart(v);
+                if (edgeTypes != null) edgeTypes[e] = TREE;
+                listener.visit(v, e);
+                if (targetValue.equals(g.nodeValue(v))) return;
+                stack[top++] = v;
+            } else if (edgeTypes != null && edgeTypes[e] == UNSEEN) {
+                if (!g.isDirected() && e == parentEdge[u]) continue;
+                if (finish[v] < 0) {
+                    edgeTypes[e] = BACK;
+                } else {
+                    edgeTypes[e] = discovery[u] < discovery[v] ? FORWARD : CROSS;
+                }
+            }
+        }
+    }
+
+    public ArrayList<String> getVisitedIds() {
+        return collector == null ? new ArrayList<>() : collector.getIds();
+    }
+
+    /** Discovery time per discovered node ID. */
+    public HashMap<String, Integer> discoveryTimes() {
+        return times(discovery);
+    }
+
+    /** Finish time per node whose subtree was fully explored before the search stopped. */
+    public HashMap<String, Integer> finishTimes() {
+        return times(finish);
+    }
+
+    /** Classification per examined edge ID; empty unless classification was requested. */
+    public HashMap<String, String> edgeTypes() {
+        HashMap<String, String> types = new HashMap<>();
+        if (edgeTypes == null) return types;
+        for (int e = 0; e < edgeTypes.length; e++) {
+            if (edgeTypes[e] != UNSEEN) types.put(g.edgeId(e), TYPE_NAMES[edgeTypes[e]]);
+        }
+        return types;
+    }
+
+    private HashMap<String, Integer> times(int[] clock) {
+        HashMap<String, Integer> times = new HashMap<>();
+        for (int v = 0; v < clock.length; v++) {
+            if (clock[v] >= 0) times.put(g.nodeId(v), clock[v]);
+        }
+        return times;
+    }
+}
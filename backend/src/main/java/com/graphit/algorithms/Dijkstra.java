@@ -0,0 +1,51 @@
+package com.graphit.algorithms;
+
+import com.graphit.models.CompiledGraph;
+
+/**
+ * Dijkstra's algorithm over a {@link CompiledGraph} using an indexed 4-ary heap
+ * with decrease-key, so each node is queued at most once and nothing is boxed.
+ */
+public final class Dijkstra {
+
+    private Dijkstra() {
+    }
+
+    /**
+     * Settles nodes outward from source and stops as soon as target is settled.
+     * Pass -1 as the target to compute the full shortest-path tree.
+     */
+    public static ShortestPathTree run(CompiledGraph g, int source, int target) {
+        return run(g, source, target, null);
+    }
+
+    /** Same search, reporting each settled node and each improved distance to listener. */
+    public static ShortestPathTree run(CompiledGraph g, int source, int target, TraversalListener listener) {
+        ShortestPathTree tree = new ShortestPathTree(g.nodeCount());
+        long[] dist = tree.distances;
+        IndexedDaryHeap heap = new IndexedDaryHeap(g.nodeCount());
+
+        dist[source] = 0;
+        heap.offer(source, 0);
+
+        while (!heap.isEmpty()) {
+            int u = heap.poll();
+            if (listener != null) listener.visit(u, tree.predEdges[u]);
+            if (u == target) {
+                break;
+            }
+            long du = dist[u];
+            for (int p = g.pairStart(u), end = g.pairEnd(u); p < end; p++) {
+                int v = g.pairTarget(p);
+                long alt = du + g.pairWeight(p);
+                if (alt < dist[v] && heap.offer(v, alt)) {
+                    dist[v] = alt;
+                    tree.predNodes[v] = u;
+                    tree.predEdges[v] = g.pairEdge(p);
+                    if (listener != null) listener.relax(v, g.pairEdge(p), alt);
+                }
+            }
+        }
+        return tree;
+    }
+}
@@ -0,0 +1,206 @@
+package com.graphit.algorithms;
+
+import com.graphit.models.CompiledGraph;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Level-synchronous BFS over int node indices with a bitset visited set.
+ *
+ * Small frontiers expand top-down along outgoing arcs. Once the frontier's
+ * arcs outweigh those left among unvisited nodes, levels expand bottom-up:
+ * every unvisited node scans its incoming arcs for a frontier parent (Beamer
+ * et al.). Bottom-up steps on big graphs are split into 64-node-aligned chunks
+ * on the fork-join pool, so each chunk owns its words of the visited bitset
+ * and needs no synchronization.
+ *
+ * Both directions pick the parent a queue-based BFS would: the frontier node
+ * earliest in its level, through its first arc to the node. A node's arcs are
+ * stored in edge order, so bottom-up takes the in-arc with the smallest
+ * (parent position, edge) pair. Nodes are reported in that same order, so the
+ * visited IDs, parent edges and early stop match a queue-based BFS exactly.
+ */
+public final class DirectionOptimizingBfs {
+
+    private static final int ALPHA = 14;
+    private static final int BETA = 24;
+    private static final int PARALLEL_THRESHOLD = 1 << 15;
+    private static final int CHUNK_NODES = 64 * 64;
+
+    private final CompiledGraph g;
+    private final ForkJoinPool pool;
+    private final TraversalListener listener;
+    private final int n;
+    private final long[] visited;
+    private final long[] frontierBits;
+    private final int[] parentEdges;
+    private final int[] parentNodes;
+    private final int[] levelPositions;
+
+    private DirectionOptimizingBfs(CompiledGraph g, ForkJoinPool pool, TraversalListener listener) {
+        this.g = g;
+        this.pool = pool;
+        this.listener = listener;
+        this.n = g.nodeCount();
+        this.visited = new long[(n + 63) >>> 6];
+        this.frontierBits = new long[(n + 63) >>> 6];
+        this.parentEdges = new int[n];
+        this.parentNodes = new int[n];
+        this.levelPositions = new int[n];
+    }
+
+    /**
+     * Visits nodes outward from origin until one whose value equals targetValue.
+     * Returns the origin followed by alternating edge and node IDs, each edge being
+     * the one the node was discovered through.
+     */
+    public static ArrayList<String> run(CompiledGraph g, int origin, String targetValue, ForkJoinPool pool) {
+        VisitedIdCollector collector = new VisitedIdCollector(g);
+        run(g, origin, targetValue, pool, collector);
+        return collector.getIds();
+    }
+
+    /** Same search, reporting each node to listener in the order run would list it. */
+    public static void run(CompiledGraph g, int origin, String targetValue, ForkJoinPool pool, TraversalListener listener) {
+        new DirectionOptimizingBfs(g, pool, listener).search(origin, targetValue);
+    }
+
+    private void search(int origin, String targetValue) {
+        int[] level = {origin};
+        mark(visited, origin);
+        listener.visit(origin, -1);
+        if (targetValue.equals(g.nodeValue(origin))) {
+            return;
+        }
+
+        long unexploredArcs = g.arcCount() - degree(origin);
+        boolean bottomUp = false;
+        while (level.length > 0) {
+            long frontierArcs = 0;
+            for (int u : level) frontierArcs += degree(u);
+            if (!bottomUp && frontierArcs > unexploredArcs / ALPHA) {
+                bottomUp = true;
+            } else if (bottomUp && level.length < n / BETA) {
+                bottomUp = false;
+            }
+
+            for (int i = 0; i < level.length; i++) levelPositions[level[i]] = i;
+            int[] next = bottomUp ? expandBottomUp(level) : expandTopDown(level);
+
+            for (int v : next) {
+                unexploredArcs -= degree(v);
+                listener.visit(v, parentEdges[v]);
+                if (targetValue.equals(g.nodeValue(v))) {
+                    return;
+                }
+            }
+            level = next;
+        }
+    }
+
+    private int[] expandTopDown(int[] level) {
+        int[] next = new int[16];
+        int size = 0;
+        for (int u : level) {
+            for (int a = g.arcStart(u), end = g.arcEnd(u); a < end; a++) {
+                int v = g.arcTarget(a);
+                if (isMarked(visited, v)) continue;
+                mark(visited, v);
+                parentNodes[v] = u;
+                parentEdges[v] = g.arcEdge(a);
+                if (size == next.length) next = Arrays.copyOf(next, size * 2);
+                next[size++] = v;
+            }
+        }
+        return Arrays.copyOf(next, size);
+    }
+
+    private int[] expandBottomUp(int[] level) {
+        Arrays.fill(frontierBits, 0);
+        for (int u : level) mark(frontierBits, u);
+
+        int[] found;
+        if (n < PARALLEL_THRESHOLD || pool.getParallelism() < 2) {
+            found = scanChunk(0, n);
+        } else {
+            int chunks = (n + CHUNK_NODES - 1) / CHUNK_NODES;
+            @SuppressWarnings("unchecked")
+            ForkJoinTask<int[]>[] tasks = new ForkJoinTask[chunks];
+            for (int c = 0; c < chunks; c++) {
+                int from = c * CHUNK_NODES;
+                int to = Math.min(n, from + CHUNK_NODES);
+                tasks[c] = pool.submit(() -> scanChunk(from, to));
+            }
+            int total = 0;
+            int[][] parts = new int[chunks][];
+            for (int c = 0; c < chunks; c++) {
+                parts[c] = tasks[c].join();
+                total += parts[c].length;
+            }
+            found = new int[total];
+            int offset = 0;
+            for (int[] part : parts) {
+                System.arraycopy(part, 0, found, offset, part.length);
+                offset += part.length;
+            }
+        }
+
+        // restore queue order: by the parent's place in the level, then by the parent's arc order
+        long[] keys = new long[found.length];
+        for (int i = 0; i < found.length; i++) {
+            int v = found[i];
+            keys[i] = ((long) levelPositions[parentNodes[v]] << 32) | parentEdges[v];
+        }
+        Arrays.sort(keys);
+        for (int i = 0; i < keys.length; i++) {
+            // the discovering edge has exactly one endpoint outside the frontier, the found node
+            int e = (int) keys[i];
+            int target = g.edgeTarget(e);
+            found[i] = isMarked(frontierBits, target) ? g.edgeSource(e) : target;
+        }
+        return found;
+    }
+
+    // from is a multiple of 64, so no two chunks touch the same visited word
+    private int[] scanChunk(int from, int to) {
+        int[] found = new int[16];
+        int size = 0;
+        for (int v = from; v < to; v++) {
+            if (isMarked(visited, v)) continue;
+            int parent = -1;
+            int parentEdge = -1;
+            // in-arcs come in edge order, so the first arc from a given parent is its earliest one
+            for (int a = g.inArcStart(v), end = g.inArcEnd(v); a < end; a++) {
+                int u = g.inArcSource(a);
+                if (!isMarked(frontierBits, u)) continue;
+                if (parent < 0 || levelPositions[u] < levelPositions[parent]) {
+                    parent = u;
+                    parentEdge = g.inArcEdge(a);
+                    if (levelPositions[u] == 0) break; // nothing can come before the head of the level
+                }
+            }
+            if (parent >= 0) {
+                mark(visited, v);
+                parentNodes[v] = parent;
+                parentEdges[v] = parentEdge;
+                if (size == found.length) found = Arrays.copyOf(found, size * 2);
+                found[size++] = v;
+            }
+        }
+        return Arrays.copyOf(found, size);
+    }
+
+    private long degree(int u) {
+        return g.arcEnd(u) - g.arcStart(u);
+    }
+
+    private static boolean isMarked(long[] bits, int i) {
+        return (bits[i >>> 6] & (1L << i)) != 0;
+    }
+
+    private static void mark(long[] bits, int i) {
+        bits[i >>> 6] |= 1L << i;
+    }
+}
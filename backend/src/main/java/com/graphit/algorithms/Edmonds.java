@@ -0,0 +1,311 @@
+package com.graphit.algorithms;
+
+import com.graphit.models.CompiledGraph;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Minimum spanning arborescence by Chu-Liu/Edmonds in Tarjan's O(E log V) form.
+ *
+ * Each (contracted) node keeps its incoming edges in a leftist heap with lazy
+ * weight offsets, so cycle contraction is a heap merge plus a union in a
+ * rollback union-find; the chosen edges are expanded again at the end by
+ * undoing the unions in reverse order.
+ *
+ * Without a fixed root a virtual super-root is added with one very heavy edge
+ * into every node. The optimum then uses exactly one of those edges whenever
+ * some real root works, and that edge names the best root.
+ */
+public final class Edmonds {
+
+    private final int nodeCount;
+    private final int[] sources;
+    private final int[] targets;
+    private final long[] weights;
+
+    // leftist heap nodes, one per candidate edge
+    private final int[] left;
+    private final int[] right;
+    private final int[] rank;
+    private final long[] keys;
+    private final long[] delta;
+
+    // rollback union-find: negative sizes at roots, with an undo log
+    private final int[] uf;
+    private int[] undoNodes;
+    private int[] undoValues;
+    private int undoSize;
+
+    private Edmonds(int[] sources, int[] targets, long[] weights, int nodeCount) {
+        this.nodeCount = nodeCount;
+        this.sources = sources;
+        this.targets = targets;
+        this.weights = weights;
+        int m = sources.length;
+        left = new int[m];
+        right = new int[m];
+        rank = new int[m];
+        keys = new long[m];
+        delta = new long[m];
+        uf = new int[nodeCount];
+        Arrays.fill(uf, -1);
+        undoNodes = new int[16];
+        undoValues = new int[16];
+    }
+
+    /**
+     * Returns the minimum arborescence rooted at root, or at the best root when
+     * root is -1. Throws IllegalArgumentException when none exists.
+     */
+    public static SpanningForest run(CompiledGraph g, int root) {
+        int n = g.nodeCount();
+        boolean virtualRoot = root < 0;
+        int total = virtualRoot ? n + 1 : n;
+
+        int candidateCount = virtualRoot ? n : 0;
+        long heavy = 1;
+        for (int e = 0; e < g.edgeCount(); e++) {
+            if (g.edgeSource(e) != g.edgeTarget(e)) candidateCount++;
+            heavy += Math.abs((long) g.edgeWeight(e));
+        }
+
+        // candidate edges: the real non-loop edges, then the super-root edges
+        int[] sources = new int[candidateCount];
+        int[] targets = new int[candidateCount];
+        long[] weights = new long[candidateCount];
+        int c = 0;
+        for (int e = 0; e < g.edgeCount(); e++) {
+            if (g.edgeSource(e) == g.edgeTarget(e)) continue;
+            sources[c] = g.edgeSource(e);
+            targets[c] = g.edgeTarget(e);
+            weights[c++] = g.edgeWeight(e);
+        }
+        int realCount = c;
+        if (virtualRoot) {
+            for (int v = 0; v < n; v++) {
+                sources[c] = n;
+                targets[c] = v;
+                weights[c++] = heavy;
+            }
+            root = n;
+        }
+
+        int[] incoming = new Edmonds(sources, targets, weights, total).solve(root);
+        if (incoming == null) {
+            throw new IllegalArgumentException("Graph has no spanning arborescence");
+        }
+
+        int realRoot = root;
+        long cost = 0;
+        if (virtualRoot) {
+            realRoot = -1;
+            for (int v = 0; v < n; v++) {
+                if (incoming[v] >= realCount) {
+                    if (realRoot >= 0) {
+                        throw new IllegalArgumentException("Graph has no spanning arborescence");
+                    }
+                    realRoot = v;
+                }
+            }
+            if (realRoot < 0) {
+                throw new IllegalArgumentException("Graph has no spanning arborescence");
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            if (v != realRoot) cost += weights[incoming[v]];
+        }
+
+        ArrayList<ArrayList<String>> trees = new ArrayList<>();
+        trees.add(listTree(g, realRoot, incoming, sources, realCount));
+        return new SpanningForest(trees, cost);
+    }
+
+    private int[] solve(int root) {
+        int[] heap = new int[nodeCount];
+        Arrays.fill(heap, -1);
+        for (int e = 0; e < sources.length; e++) {
+            left[e] = -1;
+            right[e] = -1;
+            rank[e] = 1;
+            keys[e] = weights[e];
+            heap[targets[e]] = merge(heap[targets[e]], e);
+        }
+
+        int[] seen = new int[nodeCount];
+        int[] path = new int[nodeCount];
+        int[] queue = new int[nodeCount];
+        int[] incoming = new int[nodeCount];
+        Arrays.fill(seen, -1);
+        Arrays.fill(incoming, -1);
+        seen[root] = root;
+
+        // contracted cycles, newest first: representative, union-find time, and its edges
+        ArrayDeque<int[]> cycles = new ArrayDeque<>();
+
+        for (int s = 0; s < nodeCount; s++) {
+            int u = s;
+            int qi = 0;
+            while (seen[u] < 0) {
+                if (heap[u] < 0) {
+                    return null;
+                }
+                int top = heap[u];
+                push(top);
+                long w = keys[top];
+                delta[top] -= w;
+                heap[u] = pop(top);
+                queue[qi] = top;
+                path[qi++] = u;
+                seen[u] = s;
+                u = find(sources[top]);
+                if (seen[u] == s) {
+                    // found a cycle: contract everything on it into one node
+                    int cycleHeap = -1;
+                    int end = qi;
+                    int time = undoSize;
+                    int w2;
+                    do {
+                        w2 = path[--qi];
+                        cycleHeap = merge(cycleHeap, heap[w2]);
+                    } while (join(u, w2));
+                    u = find(u);
+                    heap[u] = cycleHeap;
+                    seen[u] = -1;
+                    int[] cycle = new int[2 + end - qi];
+                    cycle[0] = u;
+                    cycle[1] = time;
+                    System.arraycopy(queue, qi, cycle, 2, end - qi);
+                    cycles.addFirst(cycle);
+                }
+            }
+            for (int i = 0; i < qi; i++) {
+                incoming[find(targets[queue[i]])] = queue[i];
+            }
+        }
+
+        // expand the cycles again, choosing for each the edges that keep it acyclic
+        for (int[] cycle : cycles) {
+            rollback(cycle[1]);
+            int inEdge = incoming[cycle[0]];
+            for (int i = 2; i < cycle.length; i++) {
+                incoming[find(targets[cycle[i]])] = cycle[i];
+            }
+            incoming[find(targets[inEdge])] = inEdge;
+        }
+        return incoming;
+    }
+
+    private static ArrayList<String> listTree(CompiledGraph g, int root, int[] incoming, int[] sources, int realCount) {
+        int n = g.nodeCount();
+        // candidate edges skip self-loops, so map candidate indices back to edge IDs by position
+        int[] edgeOf = new int[realCount];
+        for (int e = 0, c = 0; e < g.edgeCount(); e++) {
+            if (g.edgeSource(e) != g.edgeTarget(e)) edgeOf[c++] = e;
+        }
+
+        int[] head = new int[n];
+        int[] next = new int[n];
+        Arrays.fill(head, -1);
+        for (int v = n - 1; v >= 0; v--) {
+            if (v == root) continue;
+            int parent = sources[incoming[v]];
+            next[v] = head[parent];
+            head[parent] = v;
+        }
+
+        ArrayList<String> tree = new ArrayList<>();
+        int[] bfs = new int[n];
+        int qHead = 0;
+        int qTail = 0;
+        bfs[qTail++] = root;
+        tree.add(g.nodeId(root));
+        while (qHead < qTail) {
+            int u = bfs[qHead++];
+            for (int v = head[u]; v >= 0; v = next[v]) {
+                bfs[qTail++] = v;
+                tree.add(g.edgeId(edgeOf[incoming[v]]));
+                tree.add(g.nodeId(v));
+            }
+        }
+        return tree;
+    }
+
+    // applies a pending weight offset to a heap node and hands it to its children
+    private void push(int a) {
+        long d = delta[a];
+        if (d != 0) {
+            keys[a] += d;
+            if (left[a] >= 0) delta[left[a]] += d;
+            if (right[a] >= 0) delta[right[a]] += d;
+            delta[a] = 0;
+        }
+    }
+
+    // recursion follows right spines only, which leftist heaps keep logarithmic
+    private int merge(int a, int b) {
+        if (a < 0) return b;
+        if (b < 0) return a;
+        push(a);
+        push(b);
+        if (keys[a] > keys[b]) {
+            int t = a;
+            a = b;
+            b = t;
+        }
+        right[a] = merge(right[a], b);
+        if (rankOf(left[a]) < rankOf(right[a])) {
+            int t = left[a];
+            left[a] = right[a];
+            right[a] = t;
+        }
+        rank[a] = rankOf(right[a]) + 1;
+        return a;
+    }
+
+    private int pop(int a) {
+        push(a);
+        return merge(left[a], right[a]);
+    }
+
+    private int rankOf(int a) {
+        return a < 0 ? 0 : rank[a];
+    }
+
+    private int find(int x) {
+        while (uf[x] >= 0) x = uf[x];
+        return x;
+    }
+
+    private boolean join(int a, int b) {
+        a = find(a);
+        b = find(b);
+        if (a == b) return false;
+        if (uf[a] > uf[b]) {
+            int t = a;
+            a = b;
+            b = t;
+        }
+        record(a);
+        record(b);
+        uf[a] += uf[b];
+        uf[b] = a;
+        return true;
+    }
+
+    private void record(int node) {
+        if (undoSize == undoNodes.length) {
+            undoNodes = Arrays.copyOf(undoNodes, undoSize * 2);
+            undoValues = Arrays.copyOf(undoValues, undoSize * 2);
+        }
+        undoNodes[undoSize] = node;
+        undoValues[undoSize++] = uf[node];
+    }
+
+    private void rollback(int time) {
+        while (undoSize > time) {
+            undoSize--;
+            uf[undoNodes[undoSize]] = undoValues[undoSize];
+        }
+    }
+}
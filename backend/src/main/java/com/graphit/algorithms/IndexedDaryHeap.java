@@ -0,0 +1,136 @@
+package com.graphit.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * Min-heap over node indices 0..n-1 with long keys, supporting decrease-key.
+ * Each node is in the heap at most once, so there are no stale entries to skip.
+ */
+public class IndexedDaryHeap {
+
+    private static final int ARITY = 4;
+    private static final int NEVER_ADDED = -1;
+    private static final int REMOVED = -2;
+
+    private final int[] heap;
+    private final int[] positions;
+    private final long[] keys;
+    private int size;
+
+    public IndexedDaryHeap(int capacity) {
+        heap = new int[capacity];
+        positions = new int[capacity];
+        keys = new long[capacity];
+        Arrays.fill(positions, NEVER_ADDED);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int node) {
+        return positions[node] >= 0;
+    }
+
+    /** True once the node has been returned by {@link #poll()}. */
+    public boolean isRemoved(int node) {
+        return positions[node] == REMOVED;
+    }
+
+    public long peekKey() {
+        return keys[heap[0]];
+    }
+
+    public int peek() {
+        return heap[0];
+    }
+
+    /**
+     * Inserts the node, or lowers its key if it is already queued with a larger one.
+     * Returns false (and does nothing) when the node was already removed or the key
+     * would not decrease.
+     */
+    public boolean offer(int node, long key) {
+        int pos = positions[node];
+        if (pos == REMOVED) {
+            return false;
+        }
+        if (pos == NEVER_ADDED) {
+            keys[node] = key;
+            heap[size] = node;
+            positions[node] = size;
+            siftUp(size++);
+            return true;
+        }
+        if (key >= keys[node]) {
+            return false;
+        }
+        keys[node] = key;
+        siftUp(pos);
+        return true;
+    }
+
+    public int poll() {
+        int min = heap[0];
+        positions[min] = REMOVED;
+        size--;
+        if (size > 0) {
+            int last = heap[size];
+            heap[0] = last;
+            positions[last] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    private void siftUp(int pos) {
+        int node = heap[pos];
+        long key = keys[node];
+        while (pos > 0) {
+            int parentPos = (pos - 1) / ARITY;
+            int parent = heap[parentPos];
+            if (keys[parent] <= key) {
+                break;
+            }
+            heap[pos] = parent;
+            positions[parent] = pos;
+            pos = parentPos;
+        }
+        heap[pos] = node;
+        positions[node] = pos;
+    }
+
+    private void siftDown(int pos) {
+        int node = heap[pos];
+        long key = keys[node];
+        while (true) {
+            int first = pos * ARITY + 1;
+            if (first >= size) {
+                break;
+            }
+            int last = Math.min(first + ARITY, size);
+            int best = first;
+            long bestKey = keys[heap[first]];
+            for (int c = first + 1; c < last; c++) {
+                long k = keys[heap[c]];
+                if (k < bestKey) {
+                    best = c;
+                    bestKey = k;
+                }
+            }
+            if (bestKey >= key) {
+                break;
+            }
+            int child = heap[best];
+            heap[pos] = child;
+            positions[child] = pos;
+            pos = best;
+        }
+        heap[pos] = node;
+        positions[node] = pos;
+    }
+}
@@ -0,0 +1,89 @@
+package com.graphit.algorithms;
+
+import com.graphit.models.CompiledGraph;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Kruskal's minimum spanning forest: edges sorted once by weight as packed
+ * primitive keys, then merged through a {@link UnionFind}. Disconnected graphs
+ * get one tree per component rather than an error.
+ */
+public final class Kruskal {
+
+    private Kruskal() {
+    }
+
+    public static SpanningForest run(CompiledGraph g) {
+        int n = g.nodeCount();
+        int m = g.edgeCount();
+
+        // weight in the high half and edge index in the low half sorts by weight, then input order
+        long[] order = new long[m];
+        for (int e = 0; e < m; e++) {
+            order[e] = ((long) g.edgeWeight(e) << 32) | e;
+        }
+        Arrays.sort(order);
+
+        UnionFind sets = new UnionFind(n);
+        int[] chosen = new int[Math.max(0, n - 1)];
+        int chosenCount = 0;
+        long totalWeight = 0;
+        for (int i = 0; i < m && chosenCount < n - 1; i++) {
+            int e = (int) order[i];
+            if (sets.union(g.edgeSource(e), g.edgeTarget(e))) {
+                chosen[chosenCount++] = e;
+                totalWeight += g.edgeWeight(e);
+            }
+        }
+
+        return new SpanningForest(listTrees(g, chosen, chosenCount), totalWeight);
+    }
+
+    // walks the chosen edges breadth-first from the lowest-indexed node of each component
+    private static ArrayList<ArrayList<String>> listTrees(CompiledGraph g, int[] chosen, int chosenCount) {
+        int n = g.nodeCount();
+        int[] head = new int[n];
+        int[] next = new int[2 * chosenCount];
+        int[] slotEdge = new int[2 * chosenCount];
+        Arrays.fill(head, -1);
+        for (int i = 0; i < chosenCount; i++) {
+            int e = chosen[i];
+            link(head, next, slotEdge, 2 * i, g.edgeSource(e), e);
+            link(head, next, slotEdge, 2 * i + 1, g.edgeTarget(e), e);
+        }
+
+        ArrayList<ArrayList<String>> trees = new ArrayList<>();
+        boolean[] listed = new boolean[n];
+        int[] queue = new int[n];
+        for (int root = 0; root < n; root++) {
+            if (listed[root]) continue;
+            ArrayList<String> tree = new ArrayList<>();
+            int qHead = 0;
+            int qTail = 0;
+            queue[qTail++] = root;
+            listed[root] = true;
+            tree.add(g.nodeId(root));
+            while (qHead < qTail) {
+                int u = queue[qHead++];
+                for (int s = head[u]; s >= 0; s = next[s]) {
+                    int e = slotEdge[s];
+                    int v = g.edgeSource(e) == u ? g.edgeTarget(e) : g.edgeSource(e);
+                    if (listed[v]) continue;
+                    listed[v] = true;
+                    queue[qTail++] = v;
+                    tree.add(g.edgeId(e));
+                    tree.add(g.nodeId(v));
+                }
+            }
+            trees.add(tree);
+        }
+        return trees;
+    }
+
+    private static void link(int[] head, int[] next, int[] slotEdge, int slot, int node, int edge) {
+        slotEdge[slot] = edge;
+        next[slot] = head[node];
+        head[node] = slot;
+    }
+}
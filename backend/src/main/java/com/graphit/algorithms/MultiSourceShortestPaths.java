@@ -0,0 +1,61 @@
+package com.graphit.algorithms;
+
+import com.graphit.models.CompiledGraph;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Runs one full Dijkstra per source on a fork-join pool and hands the rows to
+ * a consumer in source order. Sources are processed in batches, and the next
+ * batch computes while the current one is consumed, so at most two batches of
+ * rows are held in memory at once.
+ */
+public final class MultiSourceShortestPaths {
+
+    public interface RowConsumer {
+        void accept(int source, ShortestPathTree row) throws IOException;
+    }
+
+    private MultiSourceShortestPaths() {
+    }
+
+    public static void run(CompiledGraph g, int[] sources, ForkJoinPool pool, RowConsumer consumer) throws IOException {
+        int batchSize = Math.max(1, pool.getParallelism() * 2);
+        ForkJoinTask<ShortestPathTree>[] current = submit(g, sources, 0, batchSize, pool);
+        ForkJoinTask<ShortestPathTree>[] next = null;
+        try {
+            for (int start = 0; start < sources.length; start += batchSize) {
+                next = submit(g, sources, start + batchSize, batchSize, pool);
+                for (int i = 0; i < current.length; i++) {
+                    consumer.accept(sources[start + i], current[i].join());
+                    current[i] = null;
+                }
+                current = next;
+                next = null;
+            }
+        } finally {
+            // a failed write (e.g. the client went away) should not leave work queued
+            cancel(current);
+            cancel(next);
+        }
+    }
+
+    private static void cancel(ForkJoinTask<ShortestPathTree>[] tasks) {
+        if (tasks == null) return;
+        for (ForkJoinTask<ShortestPathTree> task : tasks) {
+            if (task != null) task.cancel(false);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ForkJoinTask<ShortestPathTree>[] submit(CompiledGraph g, int[] sources, int start, int batchSize, ForkJoinPool pool) {
+        int count = Math.max(0, Math.min(batchSize, sources.length - start));
+        ForkJoinTask<ShortestPathTree>[] tasks = new ForkJoinTask[count];
+        for (int i = 0; i < count; i++) {
+            int source = sources[start + i];
+            tasks[i] = pool.submit(() -> Dijkstra.run(g, source, -1));
+        }
+        return tasks;
+    }
+}
@@ -0,0 +1,65 @@
+package com.graphit.algorithms;
+
+import com.graphit.models.CompiledGraph;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Distances and predecessor links produced by a single-source search.
+ * Unreached nodes keep a distance of {@link #UNREACHED} and a predecessor of -1.
+ */
+public class ShortestPathTree {
+
+    public static final long UNREACHED = Long.MAX_VALUE;
+
+    final long[] distances;
+    final int[] predNodes;
+    final int[] predEdges;
+
+    ShortestPathTree(int nodeCount) {
+        distances = new long[nodeCount];
+        predNodes = new int[nodeCount];
+        predEdges = new int[nodeCount];
+        Arrays.fill(distances, UNREACHED);
+        Arrays.fill(predNodes, -1);
+        Arrays.fill(predEdges, -1);
+    }
+
+    public long distance(int node) {
+        return distances[node];
+    }
+
+    public int predecessor(int node) {
+        return predNodes[node];
+    }
+
+    public int predecessorEdge(int node) {
+        return predEdges[node];
+    }
+
+    public boolean reached(int node) {
+        return distances[node] != UNREACHED;
+    }
+
+    /**
+     * Alternating node and edge IDs from the source to target, or an empty list
+     * when target was not reached.
+     */
+    public ArrayList<String> pathTo(CompiledGraph g, int target) {
+        ArrayList<String> path = new ArrayList<>();
+        if (!reached(target)) {
+            return path;
+        }
+        int current = target;
+        path.add(g.nodeId(current));
+        // bounded by the node count in case negative weights left a predecessor cycle
+        for (int steps = 0; predNodes[current] >= 0 && steps < g.nodeCount(); steps++) {
+            path.add(g.edgeId(predEdges[current]));
+            current = predNodes[current];
+            path.add(g.nodeId(current));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+}
@@ -0,0 +1,34 @@
+package com.graphit.algorithms;
+
+import java.util.ArrayList;
+
+/**
+ * One spanning tree per connected component. Each tree is listed like the
+ * MST path: its first node, then alternating edge and node IDs, where every
+ * edge joins the node after it to a node listed earlier.
+ */
+public class SpanningForest {
+
+    private final ArrayList<ArrayList<String>> trees;
+    private final long totalWeight;
+
+    SpanningForest(ArrayList<ArrayList<String>> trees, long totalWeight) {
+        this.trees = trees;
+        this.totalWeight = totalWeight;
+    }
+
+    public ArrayList<ArrayList<String>> getTrees() {
+        return trees;
+    }
+
+    public long getTotalWeight() {
+        return totalWeight;
+    }
+
+    /** All trees back to back, in the same shape as the single-tree MST result. */
+    public ArrayList<String> visitedIds() {
+        ArrayList<String> ids = new ArrayList<>();
+        for (ArrayList<String> tree : trees) ids.addAll(tree);
+        return ids;
+    }
+}
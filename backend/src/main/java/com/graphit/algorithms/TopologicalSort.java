@@ -0,0 +1,115 @@
+package com.graphit.algorithms;
+
+import com.graphit.models.CompiledGraph;
+import java.util.ArrayList;
+
+/**
+ * Iterative Kahn's algorithm over primitive in-degree counts. Nodes come out
+ * level by level: level 0 has no incoming edges, and every node in level k
+ * depends only on nodes in earlier levels, so the nodes of one level are
+ * independent of each other. When the graph has a cycle, one is reported.
+ */
+public class TopologicalSort {
+
+    private final ArrayList<ArrayList<String>> levels;
+    private final ArrayList<String> cycle;
+
+    private TopologicalSort(ArrayList<ArrayList<String>> levels, ArrayList<String> cycle) {
+        this.levels = levels;
+        this.cycle = cycle;
+    }
+
+    public static TopologicalSort run(CompiledGraph g) {
+        int n = g.nodeCount();
+        int[] inDegree = new int[n];
+        for (int u = 0; u < n; u++) {
+            for (int a = g.arcStart(u), end = g.arcEnd(u); a < end; a++) {
+                inDegree[g.arcTarget(a)]++;
+            }
+        }
+
+        // the queue doubles as the output order; each level is a contiguous run of it
+        int[] queue = new int[n];
+        int tail = 0;
+        for (int u = 0; u < n; u++) {
+            if (inDegree[u] == 0) queue[tail++] = u;
+        }
+
+        ArrayList<ArrayList<String>> levels = new ArrayList<>();
+        int head = 0;
+        while (head < tail) {
+            int levelEnd = tail;
+            ArrayList<String> level = new ArrayList<>(levelEnd - head);
+            for (; head < levelEnd; head++) {
+                int u = queue[head];
+                level.add(g.nodeId(u));
+                for (int a = g.arcStart(u), end = g.arcEnd(u); a < end; a++) {
+                    if (--inDegree[g.arcTarget(a)] == 0) queue[tail++] = g.arcTarget(a);
+                }
+            }
+            levels.add(level);
+        }
+
+        if (tail == n) {
+            return new TopologicalSort(levels, null);
+        }
+        return new TopologicalSort(levels, findCycle(g, inDegree));
+    }
+
+    /**
+     * Every node Kahn could not emit still has an incoming edge from another such
+     * node, so walking those edges backwards must eventually repeat a node.
+     */
+    private static ArrayList<String> findCycle(CompiledGraph g, int[] inDegree) {
+        int n = g.nodeCount();
+        int start = 0;
+        while (inDegree[start] == 0) start++;
+
+        int[] walkIndex = new int[n];
+        int[] walkNodes = new int[n + 1];
+        int[] walkEdges = new int[n + 1];
+        int length = 0;
+        int node = start;
+        while (walkIndex[node] == 0) {
+            walkNodes[length] = node;
+            walkIndex[node] = ++length;
+            for (int a = g.inArcStart(node), end = g.inArcEnd(node); a < end; a++) {
+                int from = g.inArcSource(a);
+                if (inDegree[from] > 0) {
+                    walkEdges[length - 1] = g.inArcEdge(a);
+                    node = from;
+                    break;
+                }
+            }
+        }
+
+        // the walk ran against edge direction, so read the repeated stretch backwards
+        int first = walkIndex[node] - 1;
+        ArrayList<String> cycle = new ArrayList<>();
+        cycle.add(g.nodeId(node));
+        for (int i = length - 1; i >= first; i--) {
+            cycle.add(g.edgeId(walkEdges[i]));
+            cycle.add(g.nodeId(walkNodes[i]));
+        }
+        return cycle;
+    }
+
+    public boolean hasCycle() {
+        return cycle != null;
+    }
+
+    /** A cycle as alternating node and edge IDs that starts and ends on the same node. */
+    public ArrayList<String> getCycle() {
+        return cycle;
+    }
+
+    public ArrayList<ArrayList<String>> getLevels() {
+        return levels;
+    }
+
+    public ArrayList<String> orderedIds() {
+        ArrayList<String> ids = new ArrayList<>();
+        for (ArrayList<String> level : levels) ids.addAll(level);
+        return ids;
+    }
+}
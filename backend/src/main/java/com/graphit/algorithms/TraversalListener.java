@@ -0,0 +1,20 @@
+package com.graphit.algorithms;
+
+/**
+ * Receives an engine's progress as it happens, so callers can stream it out
+ * instead of waiting for the finished result. Events arrive on the thread that
+ * runs the engine; an implementation that blocks simply pauses the search.
+ */
+public interface TraversalListener {
+
+    /** Node was reached through edge, or is the start node when edge is -1. */
+    void visit(int node, int edge);
+
+    /** Node's tentative distance dropped to distance through edge. */
+    default void relax(int node, int edge, long distance) {
+    }
+
+    /** Everything reachable below node has been explored. */
+    default void finish(int node) {
+    }
+}
@@ -0,0 +1,28 @@
+package com.graphit.algorithms;
+
+import com.graphit.models.CompiledGraph;
+import java.util.ArrayList;
+
+/**
+ * Collects visits into the ID list the endpoints return: the start node
+ * followed by alternating edge and node IDs.
+ */
+public class VisitedIdCollector implements TraversalListener {
+
+    private final CompiledGraph g;
+    private final ArrayList<String> ids = new ArrayList<>();
+
+    public VisitedIdCollector(CompiledGraph g) {
+        this.g = g;
+    }
+
+    @Override
+    public void visit(int node, int edge) {
+        if (edge >= 0) ids.add(g.edgeId(edge));
+        ids.add(g.nodeId(node));
+    }
+
+    public ArrayList<String> getIds() {
+        return ids;
+    }
+}
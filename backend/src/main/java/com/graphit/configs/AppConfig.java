@@ -1,5 +1,7 @@
 package com.graphit.config;
 
+import java.util.concurrent.ForkJoinPool;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
@@ -11,4 +13,10 @@ public class AppConfig {
     public RestTemplate restTemplate() {
         return new RestTemplate();
     }
+
+    // kept off the common pool so long matrix jobs can't starve parallel streams elsewhere
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool algorithmPool(@Value("${algorithm.parallelism:0}") int parallelism) {
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
 }
@@ -0,0 +1,34 @@
+package com.graphit.configs;
+
+import com.graphit.models.User;
+import com.graphit.services.UserService;
+import java.util.stream.Stream;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+
+@Configuration
+public class GraphMigrationConfig {
+
+    // moves every user's embedded graphs to the graphs collection at startup
+    // instead of lazily on each user's first graph access
+    @Bean
+    @ConditionalOnProperty(name = "graphs.migrate-on-startup", havingValue = "true")
+    public ApplicationRunner graphMigrationRunner(UserService userService, MongoTemplate mongoTemplate) {
+        return args -> {
+            int migrated = 0;
+            try (Stream<User> users = mongoTemplate.stream(new Query(Criteria.where("graphs").exists(true)), User.class)) {
+                for (User user : (Iterable<User>) users::iterator) {
+                    userService.migrateEmbeddedGraphs(user);
+                    migrated++;
+                }
+            }
+            System.out.println("Migrated embedded graphs of " + migrated + " users");
+        };
+    }
+}
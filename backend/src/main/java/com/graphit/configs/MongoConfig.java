@@ -30,6 +30,12 @@ public class MongoConfig extends AbstractMongoClientConfiguration {
         return databaseName;
     }
 
+    // builds the indexes declared on the documents, e.g. the owner/graphId index on graphs
+    @Override
+    protected boolean autoIndexCreation() {
+        return true;
+    }
+
     @Override
     @Bean
     public MongoClient mongoClient() {
@@ -1,12 +1,17 @@
 package com.graphit.configs;
 
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 
 @Configuration
@@ -21,17 +26,21 @@ public class SecurityConfig {
                     "/api/login",
                     "/api/register",
                     "/api/graphs",
+                    "/api/graphs/**",
                     "/api/validate",
                     "/api/health",
                     "/api/login/oauth2/code/google",
                     "/api/ai/create",
                     "/api/ai/query",
                     "/api/algorithm/shortest",
+                    "/api/algorithm/distances",
                     "/api/algorithm/bfs",
                     "/api/algorithm/dfs",
                     "/api/algorithm/toposort",
-                    "/api/algorithm/mst"
+                    "/api/algorithm/mst",
+                    "/api/algorithm/batch"
                 ).permitAll()
+                .requestMatchers("/api/stats").hasRole("ADMIN") // cache and pool internals, for operators only
                 .anyRequest().authenticated()
             )
             .csrf(csrf -> csrf.disable())
@@ -39,6 +48,19 @@ public class SecurityConfig {
         return http.build();
     }
 
+    // HTTP basic login for /api/stats; without admin.password set, a random one locks it
+    @Bean
+    public UserDetailsService adminUserDetailsService(
+            @Value("${admin.username:admin}") String username,
+            @Value("${admin.password:}") String password,
+            PasswordEncoder passwordEncoder) {
+        String secret = password.isBlank() ? UUID.randomUUID().toString() : password;
+        return new InMemoryUserDetailsManager(User.withUsername(username)
+            .password(passwordEncoder.encode(secret))
+            .roles("ADMIN")
+            .build());
+    }
+
     @Bean
     public PasswordEncoder passwordEncoder() {   //how to use it from here??? hoow to consume in other files ???????
         return new BCryptPasswordEncoder();
@@ -5,24 +5,32 @@ import com.graphit.models.QueryReq;
 import com.graphit.services.AiService;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 
- @RestController
+@RestController
 @RequestMapping("/api/ai")
 public class AiController {
 
-    private final ExecutorService executorService = Executors.newCachedThreadPool();
     private final AiService aiService;
 
-    AiController(AiService aiService) {
+    // one permit per open query stream; when none is left new queries get 503 instead of queueing
+    private final Semaphore streamPermits;
+
+    AiController(
+            AiService aiService,
+            @Value("${ai.max-concurrent-streams:200}") int maxStreams) {
         this.aiService = aiService;
+        this.streamPermits = new Semaphore(maxStreams);
     }
 
     @PostMapping("/create")
@@ -45,16 +53,18 @@ public class AiController {
 
     @PostMapping(path = "/query", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     public Flux<String> query(@RequestBody QueryReq req) {
-        return Flux.create(sink -> {
-            executorService.submit(() -> {
-                try {
-                    req.getGraph().setName("");
-                    aiService.streamQueryResponse(req.getUserPrompt(),req.getGraph(),  req.getHistory() ,sink);
-                } catch (Exception e) {
-                    sink.error(e);
-                }
-            });
-        });
+        if (!streamPermits.tryAcquire()) {
+            return Flux.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many AI queries in progress"));
+        }
+        try {
+            req.getGraph().setName("");
+            // a client disconnect cancels this Flux, which cancels the model request and frees the permit
+            return aiService.streamQueryResponse(req.getUserPrompt(), req.getGraph(), req.getHistory())
+                .doFinally(signal -> streamPermits.release());
+        } catch (Exception e) {
+            streamPermits.release();
+            return Flux.error(e);
+        }
     }
 
 
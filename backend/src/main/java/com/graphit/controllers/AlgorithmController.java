@@ -1,26 +1,61 @@
 package com.graphit.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.graphit.algorithms.DepthFirstSearch;
+import com.graphit.algorithms.ShortestPathTree;
+import com.graphit.algorithms.SpanningForest;
+import com.graphit.algorithms.TopologicalSort;
+import com.graphit.algorithms.TraversalListener;
+import com.graphit.models.BatchReq;
+import com.graphit.models.CompiledGraph;
 import com.graphit.models.Graph;
 import com.graphit.services.AlgorithmService;
+import com.graphit.utils.ParseUtil;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Map;
+import java.util.function.Supplier;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 
 @RestController
 @RequestMapping("/api/algorithm")
 public class AlgorithmController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private AlgorithmService algorithmService;
+    private ObjectMapper objectMapper;
+    private ParseUtil parseUtil;
 
-    public AlgorithmController(AlgorithmService algorithmService) {
+    public AlgorithmController(AlgorithmService algorithmService, ObjectMapper objectMapper, ParseUtil parseUtil) {
         this.algorithmService = algorithmService;
+        this.objectMapper = objectMapper;
+        this.parseUtil = parseUtil;
+    }
+
+    // every endpoint takes either the graph as the body or the ID of one of the caller's stored graphs
+    private CompiledGraph resolve(Graph graph, String graphId, String authorizationHeader, boolean directed, boolean valued) {
+        String owner = graphId == null ? null : parseUtil.getEmailFromAuthHeader(authorizationHeader);
+        return algorithmService.compile(graph, owner, graphId, directed, valued);
+    }
+
+    // unauthorized or unknown stored graph
+    private ResponseEntity<Map<String, Object>> statusError(ResponseStatusException e) {
+        return ResponseEntity.status(e.getStatusCode()).body(Map.of("error", e.getReason()));
     }
 
     @PostMapping("/shortest")
@@ -29,15 +64,21 @@ public class AlgorithmController {
             @RequestParam String n2,
             @RequestParam boolean directed,
             @RequestParam boolean valued,
-            @RequestBody Graph graph) {
+            @RequestParam(defaultValue = "dijkstra") String mode, // dijkstra, astar or bidirectional
+            @RequestParam(required = false) String graphId,
+            @RequestHeader(value = "Authorization", required = false) String authorizationHeader,
+            @RequestBody(required = false) Graph graph) {
         try {
-            ArrayList<String> visitedIds = algorithmService.shortestPath(n1, n2, graph, directed, valued);
+            CompiledGraph g = resolve(graph, graphId, authorizationHeader, directed, valued);
+            ArrayList<String> visitedIds = algorithmService.shortestPath(g, n1, n2, mode);
 
             return ResponseEntity.ok(Map.of("visitedIds", visitedIds));
 
-        } catch (NumberFormatException e) {
+        } catch (IllegalArgumentException e) { // bad or negative edge values, or an unknown mode
             System.out.println(e);
             return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(Map.of("error", "Invalid request for the given algorithm"));
+        } catch (ResponseStatusException e) {
+            return statusError(e);
         } catch (Exception e) {
             System.out.println(e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Unexpected error occurred")); //actually etting here
@@ -45,21 +86,100 @@ public class AlgorithmController {
     }
 
 
+    // one line with the node order, then one line per source:
+    // {"source": id, "distances": [...], "predecessors": [...]} with null distances for
+    // unreachable nodes and predecessors given as indices into the node order (-1 for none)
+    @PostMapping("/distances")
+    public ResponseEntity<StreamingResponseBody> getDistances(
+            @RequestParam(defaultValue = "all") String sources,
+            @RequestParam boolean directed,
+            @RequestParam boolean valued,
+            @RequestParam(required = false) String graphId,
+            @RequestHeader(value = "Authorization", required = false) String authorizationHeader,
+            @RequestBody(required = false) Graph graph) {
+        CompiledGraph g;
+        int[] sourceIndices;
+        try {
+            g = algorithmService.requireNonNegativeWeights(resolve(graph, graphId, authorizationHeader, directed, valued));
+            sourceIndices = algorithmService.resolveSources(g, sources);
+        } catch (ResponseStatusException e) {
+            return errorStream(HttpStatus.valueOf(e.getStatusCode().value()), e.getReason());
+        } catch (IllegalArgumentException e) {
+            System.out.println(e);
+            return errorStream(HttpStatus.UNPROCESSABLE_ENTITY, "Invalid request for the given algorithm");
+        } catch (Exception e) {
+            System.out.println(e);
+            return errorStream(HttpStatus.INTERNAL_SERVER_ERROR, "Unexpected error occurred");
+        }
+
+        StreamingResponseBody body = out -> {
+            writeLine(out, Map.of("nodes", nodeIds(g)));
+            algorithmService.distanceMatrix(g, sourceIndices, (source, row) -> writeRow(out, g, source, row));
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    private String[] nodeIds(CompiledGraph g) {
+        String[] ids = new String[g.nodeCount()];
+        for (int i = 0; i < ids.length; i++) ids[i] = g.nodeId(i);
+        return ids;
+    }
+
+    private void writeRow(OutputStream out, CompiledGraph g, int source, ShortestPathTree row) throws IOException {
+        JsonGenerator gen = objectMapper.getFactory().createGenerator(out);
+        gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        gen.writeStartObject();
+        gen.writeStringField("source", g.nodeId(source));
+        gen.writeArrayFieldStart("distances");
+        for (int v = 0; v < g.nodeCount(); v++) {
+            if (row.reached(v)) gen.writeNumber(row.distance(v));
+            else gen.writeNull();
+        }
+        gen.writeEndArray();
+        gen.writeArrayFieldStart("predecessors");
+        for (int v = 0; v < g.nodeCount(); v++) {
+            gen.writeNumber(row.predecessor(v));
+        }
+        gen.writeEndArray();
+        gen.writeEndObject();
+        gen.close();
+        out.write('\n');
+        out.flush();
+    }
+
+    private void writeLine(OutputStream out, Object value) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(value));
+        out.write('\n');
+        out.flush();
+    }
+
+    private ResponseEntity<StreamingResponseBody> errorStream(HttpStatus status, String message) {
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> out.write(objectMapper.writeValueAsBytes(Map.of("error", message))));
+    }
+
+
     @PostMapping("/bfs")
     public ResponseEntity<Map<String, Object>> getBFS(
             @RequestParam String origin,
             @RequestParam String value,
             @RequestParam boolean directed,
-            @RequestBody Graph graph) {
+            @RequestParam(required = false) String graphId,
+            @RequestHeader(value = "Authorization", required = false) String authorizationHeader,
+            @RequestBody(required = false) Graph graph) {
         try {
 
-            ArrayList<String> visitedIds = algorithmService.bfs(origin, value, graph, directed);
+            CompiledGraph g = resolve(graph, graphId, authorizationHeader, directed, false);
+            ArrayList<String> visitedIds = algorithmService.bfs(g, origin, value);
 
             return ResponseEntity.ok(Map.of("visitedIds", visitedIds));
 
-        } catch (NumberFormatException e) {
+        } catch (IllegalArgumentException e) {
             System.out.println(e);
             return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(Map.of("error", "Invalid request for the given algorithm"));
+        } catch (ResponseStatusException e) {
+            return statusError(e);
         } catch (Exception e) {
             System.out.println(e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Unexpected error occurred"));
@@ -71,16 +191,33 @@ public class AlgorithmController {
             @RequestParam String origin,
             @RequestParam String value,
             @RequestParam boolean directed,
-            @RequestBody Graph graph) {
+            @RequestParam(defaultValue = "false") boolean details, // discovery/finish times and edge types
+            @RequestParam(required = false) String graphId,
+            @RequestHeader(value = "Authorization", required = false) String authorizationHeader,
+            @RequestBody(required = false) Graph graph) {
         try {
 
-            ArrayList<String> visitedIds = algorithmService.dfs(origin, value, graph, directed);
+            CompiledGraph g = resolve(graph, graphId, authorizationHeader, directed, false);
+            DepthFirstSearch result = algorithmService.dfs(g, origin, value, details);
+            if (result == null) {
+                return ResponseEntity.ok(Map.of("visitedIds", new ArrayList<String>()));
+            }
+            if (details) {
+                return ResponseEntity.ok(Map.of(
+                    "visitedIds", result.getVisitedIds(),
+                    "discovery", result.discoveryTimes(),
+                    "finish", result.finishTimes(),
+                    "edgeTypes", result.edgeTypes()
+                ));
+            }
 
-            return ResponseEntity.ok(Map.of("visitedIds", visitedIds));
+            return ResponseEntity.ok(Map.of("visitedIds", result.getVisitedIds()));
 
-        } catch (NumberFormatException e) {
+        } catch (IllegalArgumentException e) {
             System.out.println(e);
-            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(Map.of("error", "Graph must have numbered edges"));
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(Map.of("error", "Invalid request for the given algorithm"));
+        } catch (ResponseStatusException e) {
+            return statusError(e);
         } catch (Exception e) {
             System.out.println(e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Unexpected error occurred"));
@@ -92,10 +229,26 @@ public class AlgorithmController {
     public ResponseEntity<Map<String, Object>> getMST( //basically need to return a linked list
             @RequestParam boolean directed,
             @RequestParam boolean valued,
-            @RequestBody Graph graph) {
+            @RequestParam(defaultValue = "prim") String engine, // prim or kruskal, undirected only
+            @RequestParam(required = false) String root, // fixes the arborescence root, directed only
+            @RequestParam(required = false) String graphId,
+            @RequestHeader(value = "Authorization", required = false) String authorizationHeader,
+            @RequestBody(required = false) Graph graph) {
 
+        if (!engine.equals("prim") && !engine.equals("kruskal")) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(Map.of("error", "Unknown MST engine " + engine));
+        }
         try {
-            ArrayList<String> visitedIds = directed ? algorithmService.msa(graph, valued) : algorithmService.mst(graph, valued);
+            CompiledGraph g = resolve(graph, graphId, authorizationHeader, directed, valued);
+            if (directed || engine.equals("kruskal")) {
+                SpanningForest forest = directed ? algorithmService.msa(g, root) : algorithmService.spanningForest(g);
+                return ResponseEntity.ok(Map.of(
+                    "visitedIds", forest.visitedIds(),
+                    "trees", forest.getTrees(),
+                    "totalWeight", forest.getTotalWeight()
+                ));
+            }
+            ArrayList<String> visitedIds = algorithmService.mst(g);
             return ResponseEntity.ok(Map.of("visitedIds", visitedIds));
         } catch (NumberFormatException e) {
             System.out.println(e);
@@ -103,6 +256,8 @@ public class AlgorithmController {
         } catch (IllegalArgumentException e) {
             System.out.println(e);
             return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(Map.of("error", "Graph has no " + (directed ? "MSA" : "MST")));
+        } catch (ResponseStatusException e) {
+            return statusError(e);
         } catch (Exception e) {
             System.out.println(e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Unexpected error occurred"));
@@ -114,14 +269,179 @@ public class AlgorithmController {
 
     @PostMapping("/toposort")
     public ResponseEntity<Map<String, Object>> getToposort( //basically need to return a linked list
-            @RequestBody Graph graph) {
+            @RequestParam(defaultValue = "false") boolean levels, // also group nodes into independent levels
+            @RequestParam(required = false) String graphId,
+            @RequestHeader(value = "Authorization", required = false) String authorizationHeader,
+            @RequestBody(required = false) Graph graph) {
         try {
 
-            ArrayList<String> orderedIds = algorithmService.toposort(graph); //modifies graph internally
-            return ResponseEntity.ok(Map.of("orderedIds", orderedIds));
+            TopologicalSort result = algorithmService.toposort(resolve(graph, graphId, authorizationHeader, true, false));
+            if (result.hasCycle()) {
+                return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(Map.of(
+                    "error", "Graph has no Topological Ordering",
+                    "cycle", result.getCycle()
+                ));
+            }
+            if (levels) {
+                return ResponseEntity.ok(Map.of("orderedIds", result.orderedIds(), "levels", result.getLevels()));
+            }
+            return ResponseEntity.ok(Map.of("orderedIds", result.orderedIds()));
         } catch (IllegalArgumentException e) {
             System.out.println(e);
             return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(Map.of("error", "Graph has no Topological Ordering"));
+        } catch (ResponseStatusException e) {
+            return statusError(e);
+        } catch (Exception e) {
+            System.out.println(e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Unexpected error occurred"));
+        }
+    }
+
+
+
+    // streaming mode: the same endpoints with ?stream=ndjson or ?stream=sse emit the algorithm's
+    // events as it runs - {"type": "visit", "node", "edge"}, {"type": "relax", "node", "edge", "distance"},
+    // {"type": "finish", "node"} (dfs) - then a final "done" event with the result or an "error" event
+
+    @PostMapping(value = "/shortest", params = "stream")
+    public ResponseEntity<StreamingResponseBody> streamShortest(
+            @RequestParam String stream,
+            @RequestParam String n1,
+            @RequestParam String n2,
+            @RequestParam boolean directed,
+            @RequestParam boolean valued,
+            @RequestParam(defaultValue = "dijkstra") String mode,
+            @RequestParam(required = false) String graphId,
+            @RequestHeader(value = "Authorization", required = false) String authorizationHeader,
+            @RequestBody(required = false) Graph graph) {
+        return eventStream(stream, () -> algorithmService.requireNonNegativeWeights(resolve(graph, graphId, authorizationHeader, directed, valued)),
+                (g, events) -> Map.of("visitedIds", algorithmService.shortestPath(g, n1, n2, mode, events)));
+    }
+
+    @PostMapping(value = "/bfs", params = "stream")
+    public ResponseEntity<StreamingResponseBody> streamBFS(
+            @RequestParam String stream,
+            @RequestParam String origin,
+            @RequestParam String value,
+            @RequestParam boolean directed,
+            @RequestParam(required = false) String graphId,
+            @RequestHeader(value = "Authorization", required = false) String authorizationHeader,
+            @RequestBody(required = false) Graph graph) {
+        return eventStream(stream, () -> resolve(graph, graphId, authorizationHeader, directed, false), (g, events) -> {
+            algorithmService.bfs(g, origin, value, events);
+            return Map.of();
+        });
+    }
+
+    @PostMapping(value = "/dfs", params = "stream")
+    public ResponseEntity<StreamingResponseBody> streamDFS(
+            @RequestParam String stream,
+            @RequestParam String origin,
+            @RequestParam String value,
+            @RequestParam boolean directed,
+            @RequestParam(required = false) String graphId,
+            @RequestHeader(value = "Authorization", required = false) String authorizationHeader,
+            @RequestBody(required = false) Graph graph) {
+        return eventStream(stream, () -> resolve(graph, graphId, authorizationHeader, directed, false), (g, events) -> {
+            algorithmService.dfs(g, origin, value, events);
+            return Map.of();
+        });
+    }
+
+    // prim only: kruskal and the arborescence search don't grow a single tree to animate
+    @PostMapping(value = "/mst", params = "stream")
+    public ResponseEntity<StreamingResponseBody> streamMST(
+            @RequestParam String stream,
+            @RequestParam boolean directed,
+            @RequestParam boolean valued,
+            @RequestParam(defaultValue = "prim") String engine,
+            @RequestParam(required = false) String graphId,
+            @RequestHeader(value = "Authorization", required = false) String authorizationHeader,
+            @RequestBody(required = false) Graph graph) {
+        if (directed || !engine.equals("prim")) {
+            return errorStream(HttpStatus.UNPROCESSABLE_ENTITY, "Streaming is only supported for undirected prim");
+        }
+        return eventStream(stream, () -> resolve(graph, graphId, authorizationHeader, false, valued), (g, events) -> {
+            algorithmService.mst(g, events);
+            return Map.of();
+        });
+    }
+
+    private interface StreamedRun {
+        // returns the fields of the final done event
+        Map<String, Object> run(CompiledGraph g, TraversalListener events);
+    }
+
+    // the engine runs on the async request thread, so a slow client pauses it instead of piling up events
+    private ResponseEntity<StreamingResponseBody> eventStream(String stream, Supplier<CompiledGraph> graph, StreamedRun run) {
+        boolean sse = stream.equals("sse");
+        if (!sse && !stream.equals("ndjson")) {
+            return errorStream(HttpStatus.UNPROCESSABLE_ENTITY, "stream must be ndjson or sse");
+        }
+        CompiledGraph g;
+        try {
+            g = graph.get();
+        } catch (ResponseStatusException e) {
+            return errorStream(HttpStatus.valueOf(e.getStatusCode().value()), e.getReason());
+        } catch (IllegalArgumentException e) {
+            System.out.println(e);
+            return errorStream(HttpStatus.UNPROCESSABLE_ENTITY, "Invalid request for the given algorithm");
+        } catch (Exception e) {
+            System.out.println(e);
+            return errorStream(HttpStatus.INTERNAL_SERVER_ERROR, "Unexpected error occurred");
+        }
+
+        StreamingResponseBody body = out -> {
+            TraversalEventWriter events = new TraversalEventWriter(objectMapper, g, out, sse);
+            Map<String, Object> result;
+            try {
+                result = run.run(g, events);
+            } catch (UncheckedIOException e) { // client went away mid-stream
+                throw e.getCause();
+            } catch (IllegalArgumentException e) {
+                System.out.println(e);
+                events.error("Invalid request for the given algorithm");
+                return;
+            } catch (Exception e) {
+                System.out.println(e);
+                events.error("Unexpected error occurred");
+                return;
+            }
+            events.done(result);
+        };
+        return ResponseEntity.ok()
+                .contentType(sse ? MediaType.TEXT_EVENT_STREAM : NDJSON)
+                .header("Cache-Control", "no-cache")
+                .header("X-Accel-Buffering", "no") // keep proxies from buffering the stream
+                .body(body);
+    }
+
+
+
+    // body: {"graph": {...} or "graphId": "...", "calls": [{"id": "a", "algorithm": "bfs", "params": {"origin": "1", ...}}]}
+    // params are the query params of the matching endpoint; each result is what that endpoint would return
+    @PostMapping("/batch")
+    public ResponseEntity<Map<String, Object>> getBatch(
+            @RequestHeader(value = "Authorization", required = false) String authorizationHeader,
+            @RequestBody BatchReq batchReq) {
+        try {
+            if (batchReq.getCalls() == null) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", "Batch has no calls"));
+            }
+            if (batchReq.getGraph() == null && batchReq.getGraphId() == null) {
+                return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(Map.of("error", "Batch has no graph"));
+            }
+            String owner = batchReq.getGraphId() == null ? null : parseUtil.getEmailFromAuthHeader(authorizationHeader);
+
+            Map<String, Object> results = algorithmService.batch(batchReq.getGraph(), owner, batchReq.getGraphId(), batchReq.getCalls());
+
+            return ResponseEntity.ok(Map.of("results", results));
+
+        } catch (IllegalArgumentException e) { // missing or duplicate call ids
+            System.out.println(e);
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(Map.of("error", "Invalid request for the given algorithm"));
+        } catch (ResponseStatusException e) {
+            return statusError(e);
         } catch (Exception e) {
             System.out.println(e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Unexpected error occurred"));
@@ -2,8 +2,8 @@ package com.graphit.controllers;
 
 import com.graphit.models.Graph;
 import com.graphit.models.User;
-import com.graphit.repositories.UserRepository;
 import com.graphit.services.JwtTokenService;
+import com.graphit.services.UserService;
 import com.graphit.utils.ParseUtil;
 import java.util.HashMap;
 import java.util.Map;
@@ -14,6 +14,8 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
 
@@ -22,19 +24,19 @@ import org.springframework.web.server.ResponseStatusException;
 @RequestMapping("/api")  // Accessing login, register from frontend
 public class AuthController {
 
-    private UserRepository userRepository;
+    private UserService userService;
     private JwtTokenService jwtTokenService;
     private PasswordEncoder passwordEncoder;
     private ParseUtil parseUtil;
 
 
     AuthController(
-        UserRepository userRepository, //something to do with this - could be first
+        UserService userService,
         JwtTokenService jwtTokenService,
         PasswordEncoder passwordEncoder,
         ParseUtil parseUtil
     ) {
-        this.userRepository = userRepository;
+        this.userService = userService;
         this.jwtTokenService = jwtTokenService;
         this.passwordEncoder = passwordEncoder;
         this.parseUtil = parseUtil;
@@ -51,7 +53,7 @@ public class AuthController {
             String email = credentials.get("email");
             String password = credentials.get("password");
 
-            User user = userRepository.findUserByEmail(email);
+            User user = userService.findUserByEmail(email);
             if (user == null) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "User not found"));
             }
@@ -78,7 +80,7 @@ public class AuthController {
             String email = credentials.get("email");
             String password = credentials.get("password");
 
-            if (userRepository.findUserByEmail(email) != null) {
+            if (userService.findUserByEmail(email) != null) {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", "Email is already in use."));
             }
 
@@ -87,7 +89,7 @@ public class AuthController {
                 passwordEncoder.encode(password),
                 new HashMap<String, Graph>() // Assuming an empty graph list
             );
-            userRepository.save(newUser);
+            userService.saveUser(newUser);
             String jwt = jwtTokenService.generateToken(newUser);
             return ResponseEntity.ok(Map.of("token", jwt));
         } catch (Exception e) {
@@ -4,8 +4,8 @@ import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import com.graphit.models.Graph;
 import com.graphit.models.User;
-import com.graphit.repositories.UserRepository;
 import com.graphit.services.JwtTokenService;
+import com.graphit.services.UserService;
 import java.net.URI;
 import java.util.HashMap;
 import org.springframework.beans.factory.annotation.Value;
@@ -35,16 +35,16 @@ public class GoogleAuthController {
     @Value("${backend.url}")
     private String backendUrl;
 
-    private UserRepository userRepository;
+    private UserService userService;
     private RestTemplate restTemplate;
     private JwtTokenService jwtTokenService;
 
     GoogleAuthController(
-        UserRepository userRepository,
+        UserService userService,
         RestTemplate restTemplate, // two not working - no bean
         JwtTokenService jwtTokenService
     ) {
-        this.userRepository = userRepository;
+        this.userService = userService;
         this.restTemplate = restTemplate;
         this.jwtTokenService = jwtTokenService;
     }
@@ -82,11 +82,11 @@ public class GoogleAuthController {
         String email = userInfo.get("email").getAsString();
 
         // Step 3: Create the user if they don't exist
-        User user = userRepository.findUserByEmail(email);
+        User user = userService.findUserByEmail(email);
         if (user == null) {
             String googleId = userInfo.get("id").getAsString();
             user = new User(email, googleId, new HashMap<String, Graph>());
-            userRepository.save(user);
+            userService.saveUser(user);
         }
 
         // Step 4: Generate a JWT token for the authenticated user
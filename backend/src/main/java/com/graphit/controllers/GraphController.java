@@ -1,17 +1,28 @@
 package com.graphit.controllers;
 
 import com.graphit.models.Graph;
+import com.graphit.models.GraphOp;
+import com.graphit.models.GraphSummary;
+import com.graphit.models.StoredGraph;
 import com.graphit.services.UserService;
+import com.graphit.services.VersionConflictException;
+import com.graphit.utils.GraphCodec;
 import com.graphit.utils.ParseUtil;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -28,11 +39,28 @@ public class GraphController {
     }
 
     @GetMapping("/graphs")
-    public ResponseEntity<Map<String, Object>> getGraphs(@RequestHeader("Authorization") String authorizationHeader) {
+    public ResponseEntity<Map<String, Object>> getGraphs(
+            @RequestHeader("Authorization") String authorizationHeader,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
+            @RequestParam(defaultValue = "false") boolean summary) { // only ID, name, counts and updatedAt per graph
         try {
             String email = parseUtil.getEmailFromAuthHeader(authorizationHeader);
-            HashMap<String, Graph> graphs = userService.getUserGraphs(email);
-            return ResponseEntity.ok(Map.of("graphs", graphs));
+            String tag = userService.getUserGraphsTag(email);
+            if (tag != null) {
+                tag = (summary ? "s-" : "g-") + tag; // the two representations differ, so their tags must too
+                if (matchesTag(ifNoneMatch, tag)) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag).build();
+                }
+            }
+            Map<String, Object> body;
+            if (summary) {
+                List<GraphSummary> summaries = userService.getUserGraphSummaries(email);
+                body = Map.of("graphs", summaries);
+            } else {
+                HashMap<String, Graph> graphs = userService.getUserGraphs(email);
+                body = Map.of("graphs", graphs);
+            }
+            return tag == null ? ResponseEntity.ok(body) : ResponseEntity.ok().eTag(tag).body(body);
         } catch (ResponseStatusException e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Invalid Authorization header/token"));
         } catch (Exception e) {
@@ -58,4 +86,141 @@ public class GraphController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Unexpected error occurred"));
         }
     }
+
+    @GetMapping("/graphs/{graphId}")
+    public ResponseEntity<Map<String, Object>> getGraph(
+            @RequestHeader("Authorization") String authorizationHeader,
+            @PathVariable String graphId) {
+        try {
+            String email = parseUtil.getEmailFromAuthHeader(authorizationHeader);
+            StoredGraph stored = userService.getVersionedGraph(email, graphId);
+            if (stored == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Graph not found"));
+            }
+            return ResponseEntity.ok()
+                .eTag(Long.toString(stored.getVersion()))
+                .body(Map.of("graph", stored.toGraph(), "version", stored.getVersion()));
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Invalid Authorization header/token"));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Unexpected error occurred"));
+        }
+    }
+
+    // same graph as GraphCodec binary for clients that send Accept: application/x-graphit-graph; the version is in the ETag
+    @GetMapping(value = "/graphs/{graphId}", produces = GraphCodec.MEDIA_TYPE)
+    public ResponseEntity<Graph> getGraphBinary(
+            @RequestHeader("Authorization") String authorizationHeader,
+            @PathVariable String graphId) {
+        try {
+            String email = parseUtil.getEmailFromAuthHeader(authorizationHeader);
+            StoredGraph stored = userService.getVersionedGraph(email, graphId);
+            if (stored == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            }
+            return ResponseEntity.ok()
+                .eTag(Long.toString(stored.getVersion()))
+                .body(stored.toGraph());
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        } catch (Exception e) {
+            System.out.println(e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // If-Match carries the version the client last read; "*" or no header overwrites unconditionally
+    @PutMapping("/graphs/{graphId}")
+    public ResponseEntity<Map<String, Object>> saveGraph(
+            @RequestHeader("Authorization") String authorizationHeader,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
+            @PathVariable String graphId,
+            @RequestBody Graph graph) {
+        try {
+            String email = parseUtil.getEmailFromAuthHeader(authorizationHeader);
+            Long expectedVersion = parseVersion(ifMatch);
+            Long version = userService.saveUserGraph(email, graphId, graph, expectedVersion);
+            if (version == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Graph not found"));
+            }
+            return ResponseEntity.ok()
+                .eTag(Long.toString(version))
+                .body(Map.of("message", "Graph saved successfully", "version", version));
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Invalid Authorization header/token"));
+        } catch (VersionConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "error", "Graph was changed by another session",
+                "version", e.getCurrentVersion()
+            ));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(Map.of("error", "If-Match must be a graph version"));
+        } catch (Exception e) {
+            System.out.println(e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Unexpected error occurred"));
+        }
+    }
+
+    // If-None-Match may list several tags or be "*"; GET compares weakly, so a W/ prefix is ignored
+    private boolean matchesTag(String ifNoneMatch, String tag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals("\"" + tag + "\"")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // accepts 3, "3" and W/"3"
+    private Long parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        return Long.parseLong(tag.replace("\"", ""));
+    }
+
+    // body: [{"op": "addNode", "node": {...}}, {"op": "moveNode", "id": "1", "pos": {"x": 0, "y": 0}}, ...]
+    // If-Match works as on PUT; the response carries the new version for the next conditional write
+    @PatchMapping("/graphs/{graphId}")
+    public ResponseEntity<Map<String, Object>> patchGraph(
+            @RequestHeader("Authorization") String authorizationHeader,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
+            @PathVariable String graphId,
+            @RequestBody ArrayList<GraphOp> ops) {
+        try {
+            String email = parseUtil.getEmailFromAuthHeader(authorizationHeader);
+            Long expectedVersion = parseVersion(ifMatch);
+            Long version = userService.patchUserGraph(email, graphId, ops, expectedVersion);
+            if (version == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Graph not found"));
+            }
+            return ResponseEntity.ok()
+                .eTag(Long.toString(version))
+                .body(Map.of("message", "Graph updated successfully", "version", version));
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Invalid Authorization header/token"));
+        } catch (VersionConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "error", "Graph was changed by another session",
+                "version", e.getCurrentVersion()
+            ));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(Map.of("error", "If-Match must be a graph version"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Unexpected error occurred"));
+        }
+    }
 }
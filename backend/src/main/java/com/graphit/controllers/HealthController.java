@@ -1,5 +1,9 @@
 package com.graphit.controllers;
 
+import com.graphit.services.CompiledGraphCache;
+import com.graphit.services.JwtTokenService;
+import com.graphit.services.UserService;
+import java.util.Map;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -7,8 +11,29 @@ import org.springframework.web.bind.annotation.*;
 @RestController
 @RequestMapping("/api")
 public class HealthController {
+
+    private CompiledGraphCache compiledGraphCache;
+    private UserService userService;
+    private JwtTokenService jwtTokenService;
+
+    public HealthController(CompiledGraphCache compiledGraphCache, UserService userService, JwtTokenService jwtTokenService) {
+        this.compiledGraphCache = compiledGraphCache;
+        this.userService = userService;
+        this.jwtTokenService = jwtTokenService;
+    }
+
     @GetMapping("/health")
     public ResponseEntity<String> healthCheck() {
         return ResponseEntity.ok("OK");
     }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> stats() {
+        return ResponseEntity.ok(Map.of(
+            "compiledGraphCache", compiledGraphCache.getStats(),
+            "graphWriteBehind", userService.getWriteBehindStats(),
+            "verifiedTokenCache", jwtTokenService.getStats(),
+            "userCache", userService.getUserCacheStats()
+        ));
+    }
 }
@@ -0,0 +1,113 @@
+package com.graphit.controllers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.graphit.algorithms.TraversalListener;
+import com.graphit.models.CompiledGraph;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+/**
+ * Writes engine events to a streaming response, one NDJSON line or SSE frame
+ * per event. Writes block while the client is behind, which pauses the engine
+ * rather than queueing events in memory. Output is flushed every FLUSH_EVERY
+ * events or FLUSH_NANOS, whichever comes first, so the first frames go out
+ * right away without paying a flush per event.
+ */
+class TraversalEventWriter implements TraversalListener {
+
+    private static final int FLUSH_EVERY = 64;
+    private static final long FLUSH_NANOS = 50_000_000L;
+
+    private final CompiledGraph g;
+    private final JsonGenerator gen;
+    private final boolean sse;
+    private int unflushed;
+    private long lastFlush = System.nanoTime();
+
+    TraversalEventWriter(ObjectMapper objectMapper, CompiledGraph g, OutputStream out, boolean sse) throws IOException {
+        this.g = g;
+        this.sse = sse;
+        this.gen = objectMapper.getFactory().createGenerator(out);
+        gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        gen.setRootValueSeparator(null);
+    }
+
+    // listener methods can't throw IOException; the controller unwraps it again
+    @Override
+    public void visit(int node, int edge) {
+        try {
+            begin("visit");
+            gen.writeStringField("node", g.nodeId(node));
+            if (edge >= 0) gen.writeStringField("edge", g.edgeId(edge));
+            end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void relax(int node, int edge, long distance) {
+        try {
+            begin("relax");
+            gen.writeStringField("node", g.nodeId(node));
+            gen.writeStringField("edge", g.edgeId(edge));
+            gen.writeNumberField("distance", distance);
+            end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void finish(int node) {
+        try {
+            begin("finish");
+            gen.writeStringField("node", g.nodeId(node));
+            end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Last event of a successful run, carrying the algorithm's final result. */
+    void done(Map<String, Object> result) throws IOException {
+        begin("done");
+        for (Map.Entry<String, Object> field : result.entrySet()) {
+            gen.writeFieldName(field.getKey());
+            gen.writeObject(field.getValue());
+        }
+        end();
+        flush();
+    }
+
+    /** Last event of a failed run; the events before it stay valid. */
+    void error(String message) throws IOException {
+        begin("error");
+        gen.writeStringField("error", message);
+        end();
+        flush();
+    }
+
+    private void begin(String type) throws IOException {
+        if (sse) gen.writeRaw("event: " + type + "\ndata: ");
+        gen.writeStartObject();
+        gen.writeStringField("type", type);
+    }
+
+    private void end() throws IOException {
+        gen.writeEndObject();
+        gen.writeRaw(sse ? "\n\n" : "\n");
+        if (++unflushed >= FLUSH_EVERY || System.nanoTime() - lastFlush >= FLUSH_NANOS) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        gen.flush();
+        unflushed = 0;
+        lastFlush = System.nanoTime();
+    }
+}
@@ -0,0 +1,38 @@
+package com.graphit.models;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// one invocation inside a batch request; params mirror the query params of the single endpoint
+public class AlgorithmCall {
+    private String id;
+    private String algorithm; // shortest, bfs, dfs, mst or toposort
+    private Map<String, String> params = new HashMap<>();
+
+    public AlgorithmCall() {}
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public void setAlgorithm(String algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    // "params": null or no params at all reads as no parameters
+    public Map<String, String> getParams() {
+        return params == null ? Map.of() : params;
+    }
+
+    public void setParams(Map<String, String> params) {
+        this.params = params;
+    }
+}
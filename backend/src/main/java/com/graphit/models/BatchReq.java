@@ -0,0 +1,35 @@
+package com.graphit.models;
+
+import java.util.ArrayList;
+
+public class BatchReq {
+    private Graph graph;
+    private String graphId; // a stored graph of the caller, used instead of graph
+    private ArrayList<AlgorithmCall> calls = new ArrayList<>();
+
+    public BatchReq() {}
+
+    public Graph getGraph() {
+        return graph;
+    }
+
+    public void setGraph(Graph graph) {
+        this.graph = graph;
+    }
+
+    public String getGraphId() {
+        return graphId;
+    }
+
+    public void setGraphId(String graphId) {
+        this.graphId = graphId;
+    }
+
+    public ArrayList<AlgorithmCall> getCalls() {
+        return calls;
+    }
+
+    public void setCalls(ArrayList<AlgorithmCall> calls) {
+        this.calls = calls;
+    }
+}
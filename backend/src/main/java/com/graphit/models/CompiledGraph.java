@@ -0,0 +1,394 @@
+package com.graphit.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Int-indexed, compressed-sparse-row form of a {@link Graph}.
+ *
+ * Nodes are numbered 0..n-1 in the order they appear in the graph and edges
+ * 0..m-1 likewise. The outgoing arcs of node u live in the slots
+ * offsets[u]..offsets[u + 1] - 1 of the arc arrays. Undirected graphs store
+ * every edge as two arcs, one per direction. Parallel edges each keep their
+ * own arc, and a second, per-pair index holds one arc per distinct (u, v)
+ * carrying the lightest of those edges. Instances are immutable once built.
+ */
+public class CompiledGraph {
+
+    private final boolean directed;
+    private final boolean valued;
+
+    private final String[] nodeIds;
+    private final String[] nodeValues;
+    private final double[] xs;
+    private final double[] ys;
+    private final HashMap<String, Integer> nodeIndex;
+
+    private final String[] edgeIds;
+    private final int[] edgeSources;
+    private final int[] edgeTargets;
+    private final int[] edgeWeights;
+
+    private final int[] offsets;
+    private final int[] arcTargets;
+    private final int[] arcEdges;
+    private final int minWeight;
+
+    // per-pair index; shares the arc arrays when the graph has no parallel edges
+    private final int[] pairOffsets;
+    private final int[] pairTargets;
+    private final int[] pairEdges;
+
+    // built on first use; only searches that walk arcs backwards need them
+    private volatile InArcs inArcs;
+    private volatile double heuristicScale = Double.NaN;
+
+    private CompiledGraph(Graph graph, boolean directed, boolean valued) {
+        this.directed = directed;
+        this.valued = valued;
+
+        ArrayList<Node> nodes = graph.getNodes();
+        ArrayList<Edge> edges = graph.getEdges();
+        int n = nodes.size();
+        int m = edges.size();
+
+        nodeIds = new String[n];
+        nodeValues = new String[n];
+        xs = new double[n];
+        ys = new double[n];
+        nodeIndex = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            Node node = nodes.get(i);
+            nodeIds[i] = node.getID();
+            nodeValues[i] = node.getValue();
+            if (node.getPos() != null) {
+                xs[i] = node.getPos().getX();
+                ys[i] = node.getPos().getY();
+            }
+            nodeIndex.put(node.getID(), i);
+        }
+
+        edgeIds = new String[m];
+        edgeSources = new int[m];
+        edgeTargets = new int[m];
+        edgeWeights = new int[m];
+        offsets = new int[n + 1];
+        int lightest = Integer.MAX_VALUE;
+        for (int e = 0; e < m; e++) {
+            Edge edge = edges.get(e);
+            int u = indexOrThrow(edge.getN1());
+            int v = indexOrThrow(edge.getN2());
+            edgeIds[e] = edge.getID();
+            edgeSources[e] = u;
+            edgeTargets[e] = v;
+            edgeWeights[e] = valued ? Integer.parseInt(edge.getValue()) : 1;
+            lightest = Math.min(lightest, edgeWeights[e]);
+            offsets[u + 1]++;
+            if (!directed) offsets[v + 1]++;
+        }
+        minWeight = lightest;
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+
+        arcTargets = new int[offsets[n]];
+        arcEdges = new int[offsets[n]];
+        int[] cursor = new int[n];
+        System.arraycopy(offsets, 0, cursor, 0, n);
+        for (int e = 0; e < m; e++) {
+            int u = edgeSources[e];
+            int v = edgeTargets[e];
+            int a = cursor[u]++;
+            arcTargets[a] = v;
+            arcEdges[a] = e;
+            if (!directed) {
+                a = cursor[v]++;
+                arcTargets[a] = u;
+                arcEdges[a] = e;
+            }
+        }
+
+        int[] pOffsets = new int[n + 1];
+        int[] pTargets = new int[arcTargets.length];
+        int[] pEdges = new int[arcTargets.length];
+        int[] pairSlot = new int[n];
+        int[] lastSeenFrom = new int[n];
+        Arrays.fill(lastSeenFrom, -1);
+        int p = 0;
+        for (int u = 0; u < n; u++) {
+            pOffsets[u] = p;
+            for (int a = offsets[u]; a < offsets[u + 1]; a++) {
+                int v = arcTargets[a];
+                int e = arcEdges[a];
+                if (lastSeenFrom[v] != u) {
+                    lastSeenFrom[v] = u;
+                    pairSlot[v] = p;
+                    pTargets[p] = v;
+                    pEdges[p++] = e;
+                } else if (edgeWeights[e] < edgeWeights[pEdges[pairSlot[v]]]) {
+                    pEdges[pairSlot[v]] = e;
+                }
+            }
+        }
+        pOffsets[n] = p;
+        if (p == arcTargets.length) {
+            pairOffsets = offsets;
+            pairTargets = arcTargets;
+            pairEdges = arcEdges;
+        } else {
+            pairOffsets = pOffsets;
+            pairTargets = Arrays.copyOf(pTargets, p);
+            pairEdges = Arrays.copyOf(pEdges, p);
+        }
+    }
+
+    /**
+     * Builds the CSR arrays in a single pass over the graph. Throws
+     * NumberFormatException when valued is set and an edge value is not an integer.
+     */
+    public static CompiledGraph compile(Graph graph, boolean directed, boolean valued) {
+        return new CompiledGraph(graph, directed, valued);
+    }
+
+    private int indexOrThrow(String nodeId) {
+        Integer index = nodeIndex.get(nodeId);
+        if (index == null) {
+            throw new IllegalArgumentException("Edge references unknown node " + nodeId);
+        }
+        return index;
+    }
+
+    public boolean isDirected() {
+        return directed;
+    }
+
+    public boolean isValued() {
+        return valued;
+    }
+
+    public boolean hasNegativeWeights() {
+        return minWeight < 0;
+    }
+
+    public int nodeCount() {
+        return nodeIds.length;
+    }
+
+    public int edgeCount() {
+        return edgeIds.length;
+    }
+
+    public int arcCount() {
+        return arcTargets.length;
+    }
+
+    /** True when some (u, v) pair is joined by more than one arc. */
+    public boolean hasParallelEdges() {
+        return pairTargets != arcTargets;
+    }
+
+    /**
+     * Rough heap footprint in bytes, used to bound caches. ID and value strings
+     * are shared with the source graph and only their references are counted.
+     */
+    public long estimatedBytes() {
+        long n = nodeIds.length;
+        long m = edgeIds.length;
+        long arcs = arcTargets.length;
+        long pairs = hasParallelEdges() ? pairTargets.length + n + 1 : 0;
+        return 80 * n + 28 * m + 16 * arcs + 8 * (n + 1) + 8 * pairs;
+    }
+
+    /** Returns the index of the given node ID, or -1 if the graph has no such node. */
+    public int indexOf(String nodeId) {
+        Integer index = nodeIndex.get(nodeId);
+        return index == null ? -1 : index;
+    }
+
+    public String nodeId(int node) {
+        return nodeIds[node];
+    }
+
+    public String nodeValue(int node) {
+        return nodeValues[node];
+    }
+
+    public double x(int node) {
+        return xs[node];
+    }
+
+    public double y(int node) {
+        return ys[node];
+    }
+
+    public double euclidean(int u, int v) {
+        return Math.hypot(xs[u] - xs[v], ys[u] - ys[v]);
+    }
+
+    public String edgeId(int edge) {
+        return edgeIds[edge];
+    }
+
+    public int edgeSource(int edge) {
+        return edgeSources[edge];
+    }
+
+    public int edgeTarget(int edge) {
+        return edgeTargets[edge];
+    }
+
+    public int edgeWeight(int edge) {
+        return edgeWeights[edge];
+    }
+
+    /** First arc of node u; the arcs of u end at arcStart(u + 1). */
+    public int arcStart(int u) {
+        return offsets[u];
+    }
+
+    public int arcEnd(int u) {
+        return offsets[u + 1];
+    }
+
+    public int arcTarget(int arc) {
+        return arcTargets[arc];
+    }
+
+    public int arcEdge(int arc) {
+        return arcEdges[arc];
+    }
+
+    public int arcWeight(int arc) {
+        return edgeWeights[arcEdges[arc]];
+    }
+
+    /**
+     * First entry of u in the per-pair index, which has one arc per distinct
+     * neighbor. Algorithms that only care about the cheapest way from u to v
+     * iterate these instead of every parallel arc.
+     */
+    public int pairStart(int u) {
+        return pairOffsets[u];
+    }
+
+    public int pairEnd(int u) {
+        return pairOffsets[u + 1];
+    }
+
+    public int pairTarget(int pair) {
+        return pairTargets[pair];
+    }
+
+    /** The lightest edge from the pair's source to its target (the first one on ties). */
+    public int pairEdge(int pair) {
+        return pairEdges[pair];
+    }
+
+    public int pairWeight(int pair) {
+        return edgeWeights[pairEdges[pair]];
+    }
+
+    /** The lightest edge from u to v, or -1 if they are not adjacent. */
+    public int minEdge(int u, int v) {
+        for (int p = pairOffsets[u]; p < pairOffsets[u + 1]; p++) {
+            if (pairTargets[p] == v) return pairEdges[p];
+        }
+        return -1;
+    }
+
+    /** First incoming arc of node v; for undirected graphs these are its outgoing arcs. */
+    public int inArcStart(int v) {
+        return inArcs().offsets[v];
+    }
+
+    public int inArcEnd(int v) {
+        return inArcs().offsets[v + 1];
+    }
+
+    /** The node an incoming arc comes from. */
+    public int inArcSource(int arc) {
+        return inArcs().sources[arc];
+    }
+
+    public int inArcEdge(int arc) {
+        return inArcs().edges[arc];
+    }
+
+    public int inArcWeight(int arc) {
+        return edgeWeights[inArcs().edges[arc]];
+    }
+
+    /**
+     * Largest factor k such that k times the straight-line distance between two
+     * nodes never exceeds the weight of an edge joining them, so k times the
+     * distance to the target is a consistent A* heuristic. Zero when node
+     * positions say nothing about the weights, e.g. with negative weights.
+     */
+    public double heuristicScale() {
+        double scale = heuristicScale;
+        if (Double.isNaN(scale)) {
+            scale = computeHeuristicScale();
+            heuristicScale = scale;
+        }
+        return scale;
+    }
+
+    private double computeHeuristicScale() {
+        if (hasNegativeWeights()) {
+            return 0;
+        }
+        double scale = Double.POSITIVE_INFINITY;
+        for (int e = 0; e < edgeIds.length; e++) {
+            double length = euclidean(edgeSources[e], edgeTargets[e]);
+            if (length > 0) {
+                scale = Math.min(scale, edgeWeights[e] / length);
+            }
+        }
+        // shave off a little so rounding can never make the heuristic overestimate
+        return Double.isInfinite(scale) ? 0 : scale * (1 - 1e-9);
+    }
+
+    private InArcs inArcs() {
+        InArcs in = inArcs;
+        if (in == null) {
+            in = directed ? InArcs.reverse(this) : new InArcs(offsets, arcTargets, arcEdges);
+            inArcs = in;
+        }
+        return in;
+    }
+
+    private static class InArcs {
+        final int[] offsets;
+        final int[] sources;
+        final int[] edges;
+
+        InArcs(int[] offsets, int[] sources, int[] edges) {
+            this.offsets = offsets;
+            this.sources = sources;
+            this.edges = edges;
+        }
+
+        static InArcs reverse(CompiledGraph g) {
+            int n = g.nodeCount();
+            int m = g.edgeCount();
+            int[] offsets = new int[n + 1];
+            for (int e = 0; e < m; e++) {
+                offsets[g.edgeTargets[e] + 1]++;
+            }
+            for (int i = 0; i < n; i++) {
+                offsets[i + 1] += offsets[i];
+            }
+            int[] sources = new int[m];
+            int[] edges = new int[m];
+            int[] cursor = new int[n];
+            System.arraycopy(offsets, 0, cursor, 0, n);
+            for (int e = 0; e < m; e++) {
+                int a = cursor[g.edgeTargets[e]]++;
+                sources[a] = g.edgeSources[e];
+                edges[a] = e;
+            }
+            return new InArcs(offsets, sources, edges);
+        }
+    }
+}
@@ -55,6 +55,14 @@ public class Edge {
         this.n2 = n2;
     }
 
+    public String getCustomColor() {
+        return customColor;
+    }
+
+    public void setCustomColor(String customColor) {
+        this.customColor = customColor;
+    }
+
     @Override
 public String toString() {
     return "Edge{" +
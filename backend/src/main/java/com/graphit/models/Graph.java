@@ -43,47 +43,8 @@ public class Graph {
         this.edges = edges;
     }
 
-    public HashMap<String, HashMap<String, Edge>> toAdj(boolean directed) {
-        HashMap<String, HashMap<String, Edge>> adj = new HashMap<>();
-        for (Node node : nodes) {
-            adj.put(node.getID(), new HashMap<>());
-        }
-        for (Edge edge : edges) {
-            adj.get(edge.getN1()).put(edge.getN2(), edge);
-            if (!directed) adj.get(edge.getN2()).put(edge.getN1(), edge);
-        }
-        return adj;
-    }
-
-    public HashMap<String, HashMap<String, NumEdge>> toNumAdj(boolean directed, boolean valued) {
-        HashMap<String, HashMap<String, NumEdge>> adj = new HashMap<>();
-        for (Node node : nodes) {
-            adj.put(node.getID(), new HashMap<>());
-        }
-        for (Edge edge : edges) {
-            int edgeVal = 1;
-            if (valued) {
-                try {
-                    edgeVal = Integer.parseInt(edge.getValue());
-                } catch (NumberFormatException e) {
-                    throw e;
-                }
-            }
-            adj.get(edge.getN1()).put(edge.getN2(), new NumEdge(edge.getID(), edgeVal, edge.getN1(), edge.getN2()));
-            if (!directed) adj.get(edge.getN2()).put(edge.getN1(), new NumEdge(edge.getID(), edgeVal, edge.getN1(), edge.getN2()));
-        }
-        return adj;
-    }
-
-    public HashMap<String, ArrayList<String>> toBasicAdj() {//bool bidirectinoal
-        HashMap<String, ArrayList<String>> adj = new HashMap<>();
-        for (Node node : nodes) {
-            adj.put(node.getID(), new ArrayList<>());
-        }
-        for (Edge edge : edges) {
-            adj.get(edge.getN1()).add(edge.getN2());
-        }
-        return adj;
+    public CompiledGraph compile(boolean directed, boolean valued) {
+        return CompiledGraph.compile(this, directed, valued);
     }
 
     public HashMap<String, String> getNodeValues() {
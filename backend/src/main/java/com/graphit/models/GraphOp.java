@@ -0,0 +1,52 @@
+package com.graphit.models;
+
+// one edit in a graph patch; which fields are needed depends on op
+public class GraphOp {
+    private String op; // addNode, moveNode, deleteNode, addEdge or deleteEdge
+    private Node node; // addNode
+    private Edge edge; // addEdge
+    private String id; // moveNode, deleteNode, deleteEdge
+    private Position pos; // moveNode
+
+    public GraphOp() {}
+
+    public String getOp() {
+        return op;
+    }
+
+    public void setOp(String op) {
+        this.op = op;
+    }
+
+    public Node getNode() {
+        return node;
+    }
+
+    public void setNode(Node node) {
+        this.node = node;
+    }
+
+    public Edge getEdge() {
+        return edge;
+    }
+
+    public void setEdge(Edge edge) {
+        this.edge = edge;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Position getPos() {
+        return pos;
+    }
+
+    public void setPos(Position pos) {
+        this.pos = pos;
+    }
+}
@@ -0,0 +1,117 @@
+package com.graphit.models;
+
+import java.util.ArrayList;
+import java.util.Date;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// one graph of one user; graphId is the key the graph had in the user's map
+@Document(collection = "graphs")
+@CompoundIndex(name = "owner_graphId", def = "{'owner': 1, 'graphId': 1}", unique = true)
+public class StoredGraph {
+
+    @Id
+    private String id; // MongoDB ID
+    private String owner; // the user's email
+    private String graphId;
+    private String name;
+    private ArrayList<Node> nodes;
+    private ArrayList<Edge> edges;
+    private Date updatedAt;
+    private long version; // bumped by every write that changes the graph; missing on old documents, which read as 0
+    private String contentHash; // hash of name, nodes and edges; full saves skip graphs whose hash is unchanged
+
+    public StoredGraph() {
+    }
+
+    public StoredGraph(String owner, String graphId, Graph graph) {
+        this.owner = owner;
+        this.graphId = graphId;
+        this.name = graph.getName();
+        this.nodes = graph.getNodes();
+        this.edges = graph.getEdges();
+        this.updatedAt = new Date();
+    }
+
+    public Graph toGraph() {
+        Graph graph = new Graph();
+        graph.setID(graphId);
+        graph.setName(name);
+        graph.setNodes(nodes == null ? new ArrayList<>() : nodes);
+        graph.setEdges(edges == null ? new ArrayList<>() : edges);
+        return graph;
+    }
+
+    public String getID() {
+        return id;
+    }
+
+    public void setID(String id) {
+        this.id = id;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public String getGraphId() {
+        return graphId;
+    }
+
+    public void setGraphId(String graphId) {
+        this.graphId = graphId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public ArrayList<Node> getNodes() {
+        return nodes;
+    }
+
+    public void setNodes(ArrayList<Node> nodes) {
+        this.nodes = nodes;
+    }
+
+    public ArrayList<Edge> getEdges() {
+        return edges;
+    }
+
+    public void setEdges(ArrayList<Edge> edges) {
+        this.edges = edges;
+    }
+
+    public Date getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Date updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+}
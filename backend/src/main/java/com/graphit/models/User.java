@@ -2,6 +2,7 @@ package com.graphit.models;
 
 import java.util.HashMap;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "users")
@@ -9,6 +10,7 @@ public class User {
 
     @Id
     private String id; // MongoDB ID
+    @Indexed(name = "email") // every login and token check looks users up by email; built at startup
     private String email;
     private String password;
     private HashMap<String, Graph> graphs;
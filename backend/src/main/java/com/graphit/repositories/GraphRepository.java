@@ -0,0 +1,15 @@
+package com.graphit.repositories;
+
+import com.graphit.models.StoredGraph;
+import java.util.List;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+
+public interface GraphRepository extends MongoRepository<StoredGraph, String> {
+
+    @Query("{'owner': ?0}")
+    List<StoredGraph> findGraphsByOwner(String owner);
+
+    @Query("{'owner': ?0, 'graphId': ?1}")
+    StoredGraph findGraphByOwnerAndGraphId(String owner, String graphId);
+}
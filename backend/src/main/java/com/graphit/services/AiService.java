@@ -3,16 +3,18 @@ package com.graphit.services;
 import com.google.gson.Gson;
 import com.graphit.models.Graph;
 import com.graphit.utils.AiUtil;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.chat.prompt.PromptTemplate;
 import org.springframework.ai.converter.BeanOutputConverter;
 import org.springframework.ai.openai.OpenAiChatOptions;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Flux;
 
 @Service
 public class AiService {
@@ -29,10 +31,18 @@ public class AiService {
 
     private final ChatModel chatModel;
     private final AiUtil aiUtil;
-
-    AiService(ChatModel chatModel, AiUtil aiUtil) {
+    private final Duration queryTimeout;
+    private final int bufferChunks;
+
+    public AiService(
+            ChatModel chatModel,
+            AiUtil aiUtil,
+            @Value("${ai.query.chunk-timeout-seconds:30}") long chunkTimeoutSeconds,
+            @Value("${ai.query.buffer-chunks:256}") int bufferChunks) {
         this.chatModel = chatModel;
         this.aiUtil = aiUtil;
+        this.queryTimeout = Duration.ofSeconds(chunkTimeoutSeconds);
+        this.bufferChunks = bufferChunks;
     }
 
 
@@ -68,37 +78,34 @@ public class AiService {
 
 
 
-    public void streamQueryResponse(String userPrompt, Graph graph, String history, FluxSink<String> sink) {
-        try {
-            OpenAiChatOptions openAiChatOptions = OpenAiChatOptions.builder()
-                .withModel("gpt-4o-mini")
-                .withTemperature(0.2)
-                .withTopP(0.3)
-                .build();
-
-            String graphGenerationPrompt = String.format("%s\n==========User Prompt==========\n%s\n==========Graph Data==========\n%s\n==========Conversation History==========\n%s",
-                queryPrompt, userPrompt, graph.toString(), history);
-
-                chatModel.stream(new Prompt(graphGenerationPrompt, openAiChatOptions))
-                .subscribe(
-                    chunk -> {
-                        if (chunk != null &&
-                            chunk.getResult() != null &&
-                            chunk.getResult().getOutput() != null &&
-                            chunk.getResult().getOutput().getContent() != null) {
-
-                            String content = chunk.getResult().getOutput().getContent();
-                            if (!content.isEmpty()) {
-                                sink.next(content);
-                            }
-                        }
-                    },
-                    sink::error,
-                    sink::complete
-                );
-        } catch (Exception e) {
-            sink.error(e);
+    /**
+     * Streams the model's answer as text chunks. The returned Flux is the model's
+     * own stream, so cancelling it, e.g. when the client disconnects, stops the
+     * upstream request. It fails when no chunk arrives for queryTimeout or when
+     * the client falls more than bufferChunks behind.
+     */
+    public Flux<String> streamQueryResponse(String userPrompt, Graph graph, String history) {
+        OpenAiChatOptions openAiChatOptions = OpenAiChatOptions.builder()
+            .withModel("gpt-4o-mini")
+            .withTemperature(0.2)
+            .withTopP(0.3)
+            .build();
+
+        String graphGenerationPrompt = String.format("%s\n==========User Prompt==========\n%s\n==========Graph Data==========\n%s\n==========Conversation History==========\n%s",
+            queryPrompt, userPrompt, graph.toString(), history);
+
+        return chatModel.stream(new Prompt(graphGenerationPrompt, openAiChatOptions))
+            .mapNotNull(this::chunkContent)
+            .filter(content -> !content.isEmpty())
+            .timeout(queryTimeout)
+            .onBackpressureBuffer(bufferChunks);
+    }
+
+    private String chunkContent(ChatResponse chunk) {
+        if (chunk == null || chunk.getResult() == null || chunk.getResult().getOutput() == null) {
+            return null;
         }
+        return chunk.getResult().getOutput().getContent();
     }
 
 }
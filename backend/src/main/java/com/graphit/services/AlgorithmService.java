@@ -1,393 +1,374 @@
 package com.graphit.services;
 
-import com.graphit.models.Edge;
+import com.graphit.algorithms.AStar;
+import com.graphit.algorithms.BidirectionalDijkstra;
+import com.graphit.algorithms.DepthFirstSearch;
+import com.graphit.algorithms.Dijkstra;
+import com.graphit.algorithms.DirectionOptimizingBfs;
+import com.graphit.algorithms.Edmonds;
+import com.graphit.algorithms.Kruskal;
+import com.graphit.algorithms.MultiSourceShortestPaths;
+import com.graphit.algorithms.SpanningForest;
+import com.graphit.algorithms.TopologicalSort;
+import com.graphit.algorithms.TraversalListener;
+import com.graphit.algorithms.VisitedIdCollector;
+import com.graphit.models.AlgorithmCall;
+import com.graphit.models.CompiledGraph;
 import com.graphit.models.Graph;
-import com.graphit.models.Node;
-import com.graphit.models.NodeEdgeID;
-import com.graphit.models.NumEdge;
-import java.util.AbstractMap;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.PriorityQueue;
-import java.util.Queue;
-import java.util.Stack;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 @Service
 public class AlgorithmService {
 
+    private CompiledGraphCache graphCache;
+    private ForkJoinPool algorithmPool;
+    private UserService userService;
 
-    public ArrayList<String> shortestPath(String n1, String n2, Graph graph, boolean directed, boolean valued) {
-        HashMap<String, HashMap<String, NumEdge>> adjList = graph.toNumAdj(directed, valued); //all 1
-
-        PriorityQueue<Map.Entry<String, Integer>> pq = new PriorityQueue<>(
-            (a, b) -> Integer.compare(a.getValue(), b.getValue())
-        );
-
-        HashMap<String, Integer> distances = new HashMap<>();
-        HashMap<String, String> predecessors = new HashMap<>();
-
-        distances.put(n1, 0);
-        pq.add(new AbstractMap.SimpleEntry<>(n1, 0));
-
-        while (!pq.isEmpty()) {
-            String u = pq.poll().getKey();
-
-            if (u.equals(n2)) {
-                break;
-            }
+    public AlgorithmService(CompiledGraphCache graphCache, ForkJoinPool algorithmPool, UserService userService) {
+        this.graphCache = graphCache;
+        this.algorithmPool = algorithmPool;
+        this.userService = userService;
+    }
 
-            if (adjList.get(u) != null) {
-                for (Map.Entry<String, NumEdge> ent : adjList.get(u).entrySet()) {
-                    String v = ent.getKey();
-                    NumEdge edge = ent.getValue();
-                    int weight = edge.getValue();
-                    int alt = distances.get(u) + weight;
-                    if (!distances.containsKey(v) || alt < distances.get(v)) {
-                        distances.put(v, alt);
-                        predecessors.put(v, u);
-                        pq.add(new AbstractMap.SimpleEntry<>(v, alt));
-                    }
+    /**
+     * Compiles the graph sent with the request, or owner's stored graph when
+     * graphId is given. Stored graphs are loaded from the database only when
+     * their compiled form is not cached.
+     */
+    public CompiledGraph compile(Graph graph, String owner, String graphId, boolean directed, boolean valued) {
+        if (graphId != null) {
+            return graphCache.compileStored(owner, graphId, directed, valued, () -> {
+                Graph stored = userService.getUserGraph(owner, graphId);
+                if (stored == null) {
+                    throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Graph not found");
                 }
-            }
+                return stored;
+            });
+        }
+        if (graph == null) {
+            throw new IllegalArgumentException("Request has neither a graph nor a graphId");
         }
+        return graphCache.compile(graph, directed, valued);
+    }
+
+    public ArrayList<String> shortestPath(CompiledGraph g, String n1, String n2, String mode) {
+        return shortestPath(g, n1, n2, mode, null);
+    }
 
-        if (!distances.containsKey(n2)) {
+    /** Settled nodes and relaxations go to listener when given; bidirectional searches report none. */
+    public ArrayList<String> shortestPath(CompiledGraph g, String n1, String n2, String mode, TraversalListener listener) {
+        requireNonNegativeWeights(g);
+        int source = g.indexOf(n1);
+        int target = g.indexOf(n2);
+        if (source < 0 || target < 0) {
             return new ArrayList<>();
         }
 
-        ArrayList<String> path = new ArrayList<>();
-        String current = n2;
-
-        while (current != null) {
-            path.add(current);
-            String prev = predecessors.get(current);
-            if (adjList.containsKey(prev) && adjList.get(prev).containsKey(current)) {
-                path.add(adjList.get(prev).get(current).getID());
-            }
-            current = prev;
+        switch (mode) {
+            case "dijkstra":
+                return Dijkstra.run(g, source, target, listener).pathTo(g, target);
+            case "astar":
+                return AStar.run(g, source, target, listener).pathTo(g, target);
+            case "bidirectional":
+                return BidirectionalDijkstra.path(g, source, target);
+            default:
+                throw new IllegalArgumentException("Unknown shortest path mode " + mode);
         }
-        Collections.reverse(path);
-        return path;
     }
 
+    /**
+     * Returns g, or throws IllegalArgumentException when an edge weight is negative:
+     * the shortest-path searches never revisit a settled node, so they would
+     * silently return wrong paths.
+     */
+    public CompiledGraph requireNonNegativeWeights(CompiledGraph g) {
+        if (g.hasNegativeWeights()) {
+            throw new IllegalArgumentException("Shortest paths need non-negative edge weights");
+        }
+        return g;
+    }
 
-
-    public ArrayList<String> bfs(String origin, String targetValue, Graph graph, boolean directed) {
-        HashMap<String, HashMap<String, Edge>> adjList = graph.toAdj(directed);
-        ArrayList<String> path = new ArrayList<>();
-        HashSet<String> visited = new HashSet<>();
-        HashMap<String, String> nodeValues = graph.getNodeValues();
-
-        Queue<NodeEdgeID> q = new LinkedList<>();
-        q.add(new NodeEdgeID(origin, ""));
-
-        while (!q.isEmpty()) {
-            NodeEdgeID pair = q.poll();
-            String nodeID = pair.getNodeID();
-            String edgeID = pair.getEdgeID();
-
-            if (visited.contains(nodeID)) {
-                continue;
-            }
-            visited.add(nodeID);
-            if (!edgeID.isEmpty()) {
-                path.add(edgeID);
-            }
-            path.add(nodeID);
-            if (nodeValues.get(nodeID).equals(targetValue)) {
-                return path;
-            }
-
-            for (Map.Entry<String, Edge> ent : adjList.get(nodeID).entrySet()) { //doesnt work
-                String neighbor = ent.getKey();
-                Edge edge = ent.getValue();
-                if (!visited.contains(neighbor)) {
-                    q.add(new NodeEdgeID(neighbor, edge.getID()));
-                }
+    /** Parses a comma-separated list of node IDs, or "all" for every node, into node indices. */
+    public int[] resolveSources(CompiledGraph g, String sources) {
+        if (sources.equals("all")) {
+            int[] all = new int[g.nodeCount()];
+            for (int i = 0; i < all.length; i++) all[i] = i;
+            return all;
+        }
+        String[] ids = sources.split(",");
+        int[] indices = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            indices[i] = g.indexOf(ids[i].trim());
+            if (indices[i] < 0) {
+                throw new IllegalArgumentException("Unknown source node " + ids[i]);
             }
         }
-        return path;
+        return indices;
     }
 
-    public ArrayList<String> dfs(String origin, String targetValue, Graph graph, boolean directed) {
-        HashMap<String, HashMap<String, Edge>> adjList = graph.toAdj(directed);
-        ArrayList<String> path = new ArrayList<>();
-        HashSet<String> visited = new HashSet<>();
-        HashMap<String, String> nodeValues = graph.getNodeValues();
-
-        Stack<NodeEdgeID> s = new Stack<>();
-        s.push(new NodeEdgeID(origin, ""));
-
-        while (!s.isEmpty()) {
-            NodeEdgeID pair = s.pop();
-            String nodeID = pair.getNodeID();
-            String edgeID = pair.getEdgeID();
-
-            if (visited.contains(nodeID)) {
-                continue;
-            }
-            visited.add(nodeID);
-            if (!edgeID.isEmpty()) {
-                path.add(edgeID);
-            }
-            path.add(nodeID);
-            if (nodeValues.get(nodeID).equals(targetValue)) {
-                return path;
-            }
+    public void distanceMatrix(CompiledGraph g, int[] sources, MultiSourceShortestPaths.RowConsumer consumer) throws IOException {
+        requireNonNegativeWeights(g);
+        MultiSourceShortestPaths.run(g, sources, algorithmPool, consumer);
+    }
 
-            for (Map.Entry<String, Edge> ent : adjList.get(nodeID).entrySet()) {
-                String neighbor = ent.getKey();
-                Edge edge = ent.getValue();
-                if (!visited.contains(neighbor)) {
-                    s.push(new NodeEdgeID(neighbor, edge.getID()));
-                }
-            }
+    public ArrayList<String> bfs(CompiledGraph g, String origin, String targetValue) {
+        int start = g.indexOf(origin);
+        if (start < 0) {
+            return new ArrayList<>();
         }
-        return path;
+        return DirectionOptimizingBfs.run(g, start, targetValue, algorithmPool);
     }
 
+    public void bfs(CompiledGraph g, String origin, String targetValue, TraversalListener listener) {
+        int start = g.indexOf(origin);
+        if (start >= 0) {
+            DirectionOptimizingBfs.run(g, start, targetValue, algorithmPool, listener);
+        }
+    }
 
+    /** Full DFS result with times and, when classify is set, edge types; null for an unknown origin. */
+    public DepthFirstSearch dfs(CompiledGraph g, String origin, String targetValue, boolean classify) {
+        int start = g.indexOf(origin);
+        if (start < 0) {
+            return null;
+        }
+        return DepthFirstSearch.run(g, start, targetValue, classify);
+    }
 
+    public void dfs(CompiledGraph g, String origin, String targetValue, TraversalListener listener) {
+        int start = g.indexOf(origin);
+        if (start >= 0) {
+            DepthFirstSearch.run(g, start, targetValue, false, listener);
+        }
+    }
 
+    public ArrayList<String> mst(CompiledGraph g) {
+        VisitedIdCollector collector = new VisitedIdCollector(g);
+        mst(g, collector);
+        return collector.getIds();
+    }
 
-    public ArrayList<String> mst(Graph graph, boolean valued) {
-        if (graph.getEdges().isEmpty()) throw new IllegalArgumentException("Graph has no edges!");
-
-        // Convert graph to adjacency list
-        HashMap<String, HashMap<String, NumEdge>> adjList = graph.toNumAdj(false, valued);
-        ArrayList<String> path = new ArrayList<>();
+    // Prim's, reporting each node as it joins the tree
+    public void mst(CompiledGraph g, TraversalListener listener) {
+        if (g.edgeCount() == 0) throw new IllegalArgumentException("Graph has no edges!");
 
-        PriorityQueue<NumEdge> pq = new PriorityQueue<>(
-            (a, b) -> Integer.compare(a.getValue(), b.getValue())
+        // queue of pair-index arcs ordered by weight; parallel edges are already reduced to the lightest
+        PriorityQueue<Integer> pq = new PriorityQueue<>(
+            (a, b) -> Integer.compare(g.pairWeight(a), g.pairWeight(b))
         );
 
-        HashSet<String> visited = new HashSet<>();
+        boolean[] visited = new boolean[g.nodeCount()];
+        int visitedCount = 1;
 
         // Choose an arbitrary start node
-        String startNode = graph.getNodes().get(0).getID();
-        visited.add(startNode);
-        path.add(startNode); // Add the first node
+        int startNode = 0;
+        visited[startNode] = true;
+        listener.visit(startNode, -1); // Add the first node
 
         // Add all edges from the startNode to the priority queue
-        for (NumEdge edge : adjList.get(startNode).values()) {
-            pq.add(edge);
+        for (int a = g.pairStart(startNode); a < g.pairEnd(startNode); a++) {
+            pq.add(a);
         }
 
         while (!pq.isEmpty()) {
-            NumEdge edge = pq.poll();
-            String node1 = edge.getN1();
-            String node2 = edge.getN2();
-
-            // Find the unvisited node and expand from it
-            String newNode = visited.contains(node1) ? node2 : node1;
+            int arc = pq.poll();
+            int newNode = g.pairTarget(arc);
 
-            if (!visited.contains(newNode)) {
-                visited.add(newNode);
-                path.add(edge.getID());  // Add the edge ID
-                path.add(newNode);       // Add the new node ID
+            if (!visited[newNode]) {
+                visited[newNode] = true;
+                visitedCount++;
+                listener.visit(newNode, g.pairEdge(arc)); // Add the edge and the new node
 
                 // Push all its adjacent edges into PQ
-                for (NumEdge newEdge : adjList.get(newNode).values()) {
-                    if (!visited.contains(newEdge.getN1()) || !visited.contains(newEdge.getN2())) {
-                        pq.add(newEdge);
+                for (int a = g.pairStart(newNode); a < g.pairEnd(newNode); a++) {
+                    if (!visited[g.pairTarget(a)]) {
+                        pq.add(a);
                     }
                 }
             }
         }
 
         // Check if all nodes were visited (Graph should be connected)
-        if (visited.size() != graph.getNodes().size()) {
+        if (visitedCount != g.nodeCount()) {
             throw new IllegalArgumentException("Graph is not connected!");
         }
-
-        return path;
     }
 
+    public SpanningForest spanningForest(CompiledGraph g) {
+        return Kruskal.run(g);
+    }
 
-
-    public ArrayList<String> msa(Graph graph, boolean valued) {
-        if (graph.getEdges().isEmpty()) throw new IllegalArgumentException();
-
-        HashMap<String, HashMap<String, NumEdge>> adjList = graph.toNumAdj(true, valued);
-        ArrayList<String> bestPath = null;
-        int bestCost = Integer.MAX_VALUE;
-
-        // Try each node as potential root
-        for (Node startNode : graph.getNodes()) {
-            try {
-                ArrayList<String> path = findMSA(adjList, startNode.getID(), graph.getNodes().size());
-                if (isValidArborescence(path, adjList, graph.getNodes().size())) {
-                    int cost = calculatePathCost(path, adjList);
-                    if (cost < bestCost) {
-                        bestCost = cost;
-                        bestPath = path;
-                    }
-                }
-            } catch (IllegalArgumentException e) {
-                continue;
-            }
-        }
-
-        if (bestPath == null) {
-            throw new IllegalArgumentException();
+    /** Minimum spanning arborescence rooted at root, or at the cheapest root when root is null. */
+    public SpanningForest msa(CompiledGraph g, String root) {
+        int rootIndex = -1;
+        if (root != null) {
+            rootIndex = g.indexOf(root);
+            if (rootIndex < 0) throw new IllegalArgumentException("Unknown root " + root);
         }
+        return Edmonds.run(g, rootIndex);
+    }
 
-        return bestPath;
+    public TopologicalSort toposort(CompiledGraph g) {
+        return TopologicalSort.run(g);
     }
 
-    private int calculatePathCost(ArrayList<String> path, HashMap<String, HashMap<String, NumEdge>> adjList) {
-        int cost = 0;
-        for (int i = 1; i < path.size(); i += 2) {
-            String edgeId = path.get(i);
-            String fromNode = path.get(i - 1);
-            String toNode = path.get(i + 1);
-
-            HashMap<String, NumEdge> edgesFromNode = adjList.get(fromNode);
-            if (edgesFromNode != null) {
-                NumEdge edge = edgesFromNode.get(toNode);
-                if (edge != null) {
-                    cost += edge.getValue();
+    /**
+     * Runs every call against one parsed graph. Each (directed, valued) form the
+     * calls need is compiled once up front, then the calls run concurrently on the
+     * algorithm pool. Results are keyed by call ID in request order; a call that
+     * fails gets an error entry instead of failing the whole batch.
+     */
+    public Map<String, Object> batch(Graph graph, String owner, String graphId, List<AlgorithmCall> calls) throws InterruptedException {
+        LinkedHashMap<String, Object> results = new LinkedHashMap<>();
+        HashMap<String, ForkJoinTask<Map<String, Object>>> tasks = new HashMap<>();
+        HashMap<Integer, CompiledGraph> forms = new HashMap<>();
+        try {
+            for (AlgorithmCall call : calls) {
+                String id = call == null ? null : call.getId();
+                if (id == null || results.containsKey(id)) {
+                    throw new IllegalArgumentException("Missing or duplicate call id " + id);
                 }
-            }
-        }
-        return cost;
-    }
-    private ArrayList<String> findMSA(HashMap<String, HashMap<String, NumEdge>> adjList, String root, int totalNodes) {
-        ArrayList<String> path = new ArrayList<>();
-        HashSet<String> visited = new HashSet<>();
-        HashMap<String, NumEdge> incomingEdges = new HashMap<>();
-
-        // Initialize with root
-        visited.add(root);
-        path.add(root);
-
-        // For each non-root node, find the minimum incoming edge
-        for (String node : adjList.keySet()) {
-            if (!node.equals(root)) {
-                NumEdge minEdge = findMinIncomingEdge(adjList, node);
-                if (minEdge != null) {
-                    incomingEdges.put(node, minEdge);
+                results.put(id, null); // keeps the slot in request order
+                try {
+                    int form = formOf(call);
+                    CompiledGraph g = forms.get(form);
+                    if (g == null) {
+                        g = compile(graph, owner, graphId, (form & 2) != 0, (form & 1) != 0);
+                        forms.put(form, g);
+                    }
+                    CompiledGraph compiled = g;
+                    tasks.put(id, algorithmPool.submit(() -> invoke(compiled, call)));
+                } catch (Exception e) {
+                    results.put(id, callError(e));
                 }
             }
-        }
-
-        // Build the arborescence
-        while (visited.size() < totalNodes) {
-            String nextNode = null;
-            NumEdge nextEdge = null;
-
-            // Find an unvisited node that has an incoming edge from a visited node
-            for (String node : adjList.keySet()) {
-                if (!visited.contains(node) && incomingEdges.containsKey(node)) {
-                    NumEdge edge = incomingEdges.get(node);
-                    if (visited.contains(edge.getN1())) {
-                        nextNode = node;
-                        nextEdge = edge;
-                        break;
+            for (Map.Entry<String, ForkJoinTask<Map<String, Object>>> task : tasks.entrySet()) {
+                try {
+                    results.put(task.getKey(), task.getValue().get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    // fork-join hands back a copy of the task's exception wrapping the original
+                    if (cause.getCause() != null && cause.getCause().getClass() == cause.getClass()) {
+                        cause = cause.getCause();
                     }
+                    results.put(task.getKey(), callError(cause));
                 }
             }
-
-            if (nextNode == null) {
-                // No valid next node found - this root won't work
-                throw new IllegalArgumentException("Cannot reach all nodes from this root");
+            return results;
+        } finally {
+            for (ForkJoinTask<Map<String, Object>> task : tasks.values()) {
+                task.cancel(false);
             }
-
-            visited.add(nextNode);
-            path.add(nextEdge.getID());
-            path.add(nextNode);
         }
+    }
 
-        return path;
+    // bit 2 = directed, bit 1 = valued
+    private int formOf(AlgorithmCall call) {
+        String algorithm = call.getAlgorithm() == null ? "" : call.getAlgorithm();
+        switch (algorithm) {
+            case "shortest":
+                return (flag(call, "directed") ? 2 : 0) | (flag(call, "valued") ? 1 : 0);
+            case "bfs":
+            case "dfs":
+                return flag(call, "directed") ? 2 : 0;
+            case "mst":
+                return (flag(call, "directed") ? 2 : 0) | (flag(call, "valued") ? 1 : 0);
+            case "toposort":
+                return 2;
+            default:
+                throw new IllegalArgumentException("Unknown algorithm " + algorithm);
+        }
     }
 
-    private NumEdge findMinIncomingEdge(HashMap<String, HashMap<String, NumEdge>> adjList, String node) {
-        NumEdge minEdge = null;
-        int minValue = Integer.MAX_VALUE;
-
-        for (String fromNode : adjList.keySet()) {
-            HashMap<String, NumEdge> edges = adjList.get(fromNode);
-            if (edges.containsKey(node)) {
-                NumEdge edge = edges.get(node);
-                if (edge.getValue() < minValue) {
-                    minValue = edge.getValue();
-                    minEdge = edge;
+    // same response shapes as the single-algorithm endpoints
+    private Map<String, Object> invoke(CompiledGraph g, AlgorithmCall call) {
+        switch (call.getAlgorithm()) {
+            case "shortest":
+                return Map.of("visitedIds", shortestPath(g, param(call, "n1"), param(call, "n2"), call.getParams().getOrDefault("mode", "dijkstra")));
+            case "bfs":
+                return Map.of("visitedIds", bfs(g, param(call, "origin"), param(call, "value")));
+            case "dfs": {
+                boolean details = Boolean.parseBoolean(call.getParams().get("details"));
+                DepthFirstSearch result = dfs(g, param(call, "origin"), param(call, "value"), details);
+                if (result == null) {
+                    return Map.of("visitedIds", new ArrayList<String>());
+                }
+                if (!details) {
+                    return Map.of("visitedIds", result.getVisitedIds());
+                }
+                return Map.of(
+                    "visitedIds", result.getVisitedIds(),
+                    "discovery", result.discoveryTimes(),
+                    "finish", result.finishTimes(),
+                    "edgeTypes", result.edgeTypes()
+                );
+            }
+            case "mst": {
+                String engine = call.getParams().getOrDefault("engine", "prim");
+                if (!engine.equals("prim") && !engine.equals("kruskal")) {
+                    throw new IllegalArgumentException("Unknown MST engine " + engine);
                 }
+                boolean kruskal = engine.equals("kruskal");
+                if (!g.isDirected() && !kruskal) {
+                    return Map.of("visitedIds", mst(g));
+                }
+                SpanningForest forest = g.isDirected() ? msa(g, call.getParams().get("root")) : spanningForest(g);
+                return Map.of(
+                    "visitedIds", forest.visitedIds(),
+                    "trees", forest.getTrees(),
+                    "totalWeight", forest.getTotalWeight()
+                );
+            }
+            default: { // toposort
+                TopologicalSort result = toposort(g);
+                if (result.hasCycle()) {
+                    return Map.of("error", "Graph has no Topological Ordering", "cycle", result.getCycle());
+                }
+                if (Boolean.parseBoolean(call.getParams().get("levels"))) {
+                    return Map.of("orderedIds", result.orderedIds(), "levels", result.getLevels());
+                }
+                return Map.of("orderedIds", result.orderedIds());
             }
         }
-
-        return minEdge;
     }
 
-    private boolean isValidArborescence(ArrayList<String> path, HashMap<String, HashMap<String, NumEdge>> adjList, int totalNodes) {
-        if (path.size() != totalNodes * 2 - 1) return false; // Should have n nodes and n-1 edges
-
-        HashSet<String> visited = new HashSet<>();
-        visited.add(path.get(0)); // Root
-
-        // Check that each edge connects a visited node to an unvisited node
-        for (int i = 1; i < path.size(); i += 2) {
-            String edgeId = path.get(i);
-            String toNode = path.get(i + 1);
-
-            if (visited.contains(toNode)) return false; // No cycles allowed
-            visited.add(toNode);
-        }
-
-        return visited.size() == totalNodes; // All nodes must be reachable
+    private static String param(AlgorithmCall call, String name) {
+        String value = call.getParams().get(name);
+        if (value == null) throw new IllegalArgumentException("Missing parameter " + name);
+        return value;
     }
 
+    private static boolean flag(AlgorithmCall call, String name) {
+        return Boolean.parseBoolean(param(call, name));
+    }
 
-
-
-
-
-    public ArrayList<String> toposort(Graph graph) {
-        ArrayList<String> nodeIDs = graph.getNodeIDs();
-        HashMap<String, ArrayList<String>> adjList = graph.toBasicAdj();
-        ArrayList<String> nodeOrdering = new ArrayList<>();
-        HashSet<String> visited = new HashSet<>();
-        HashSet<String> inProgress = new HashSet<>();
-
-        for (String node : nodeIDs) {
-            if (!visited.contains(node)) {
-                topoDFS(node, adjList, visited, inProgress, nodeOrdering);
-            }
+    private static Map<String, Object> callError(Throwable e) {
+        System.out.println(e);
+        if (e instanceof NumberFormatException) {
+            return Map.of("error", "Graph must have numbered edges");
         }
-
-        Collections.reverse(nodeOrdering);
-        return nodeOrdering;
-        }private void topoDFS(
-            String curr,
-            HashMap<String, ArrayList<String>> adjList,
-            HashSet<String> visited,
-            HashSet<String> inProgress,
-            ArrayList<String> nodeOrdering
-        ) {
-        if (inProgress.contains(curr)) {
-            throw new IllegalArgumentException("Graph contains a cycle");
+        if (e instanceof IllegalArgumentException) {
+            return Map.of("error", e.getMessage() == null ? "Invalid request for the given algorithm" : e.getMessage());
         }
-        if (visited.contains(curr)) return;
-
-        inProgress.add(curr);
-        for (String neighbor : adjList.get(curr)) {
-            topoDFS(neighbor, adjList, visited, inProgress, nodeOrdering);
+        if (e instanceof ResponseStatusException) {
+            String reason = ((ResponseStatusException) e).getReason();
+            return Map.of("error", reason == null ? "Invalid request for the given algorithm" : reason);
         }
-        inProgress.remove(curr);
-        visited.add(curr);
-        nodeOrdering.add(curr);
+        return Map.of("error", "Unexpected error occurred");
     }
 
-
     // here on out - fully understood
 
-
-
-
-
 }
@@ -0,0 +1,111 @@
+package com.graphit.services;
+
+import com.graphit.models.CompiledGraph;
+import com.graphit.models.Edge;
+import com.graphit.models.Graph;
+import com.graphit.models.Node;
+import com.graphit.utils.LruCache;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Caches compiled graphs by a SHA-256 of their content, so repeated algorithm
+ * calls on an unchanged graph skip the adjacency build. Stored graphs are
+ * cached by owner and graph ID instead and dropped when the owner saves.
+ */
+@Service
+public class CompiledGraphCache {
+
+    private final LruCache<String, CompiledGraph> cache;
+
+    // bumped on every save, so a load racing with a save lands under a key nobody reads again
+    private final ConcurrentHashMap<String, Long> ownerVersions = new ConcurrentHashMap<>();
+
+    public CompiledGraphCache(@Value("${algorithm.cache.max-megabytes:64}") long maxMegabytes) {
+        this.cache = new LruCache<>(maxMegabytes * 1024 * 1024, CompiledGraph::estimatedBytes);
+    }
+
+    public CompiledGraph compile(Graph graph, boolean directed, boolean valued) {
+        return cache.computeIfAbsent(contentKey(graph, directed, valued), key -> graph.compile(directed, valued));
+    }
+
+    /** Compiled form of one of owner's stored graphs; the loader only runs on a miss. */
+    public CompiledGraph compileStored(String owner, String graphId, boolean directed, boolean valued, Supplier<Graph> loader) {
+        String key = ownerPrefix(owner) + ownerVersions.getOrDefault(owner, 0L) + "\u0000" + graphId
+                + "\u0000" + ((directed ? 1 : 0) | (valued ? 2 : 0));
+        return cache.computeIfAbsent(key, k -> loader.get().compile(directed, valued));
+    }
+
+    /** Drops every cached stored graph of owner; call after their graphs are written. */
+    public void invalidateOwner(String owner) {
+        ownerVersions.merge(owner, 1L, Long::sum);
+        String prefix = ownerPrefix(owner);
+        cache.invalidateIf(key -> key.startsWith(prefix));
+    }
+
+    // content keys are hex digests, so they can never start with this
+    private String ownerPrefix(String owner) {
+        return "stored\u0000" + owner + "\u0000";
+    }
+
+    public Map<String, Object> getStats() {
+        return cache.getStats();
+    }
+
+    private String contentKey(Graph graph, boolean directed, boolean valued) {
+        MessageDigest digest = sha256();
+        digest.update((byte) ((directed ? 1 : 0) | (valued ? 2 : 0)));
+        for (Node node : graph.getNodes()) {
+            update(digest, node.getID());
+            update(digest, node.getValue());
+            // positions feed the A* heuristic
+            if (node.getPos() != null) {
+                update(digest, Double.doubleToLongBits(node.getPos().getX()));
+                update(digest, Double.doubleToLongBits(node.getPos().getY()));
+            }
+        }
+        digest.update((byte) 0xFF);
+        for (Edge edge : graph.getEdges()) {
+            update(digest, edge.getID());
+            update(digest, edge.getN1());
+            update(digest, edge.getN2());
+            if (valued) update(digest, edge.getValue());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // length-prefixed so that ("ab", "c") and ("a", "bc") hash differently
+    private void update(MessageDigest digest, String s) {
+        if (s == null) {
+            digest.update((byte) 0xFE);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) (bytes.length >>> 24));
+        digest.update((byte) (bytes.length >>> 16));
+        digest.update((byte) (bytes.length >>> 8));
+        digest.update((byte) bytes.length);
+        digest.update(bytes);
+    }
+
+    private void update(MessageDigest digest, long bits) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            digest.update((byte) (bits >>> shift));
+        }
+    }
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
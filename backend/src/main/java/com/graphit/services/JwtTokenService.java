@@ -1,10 +1,13 @@
 package com.graphit.services;
 
 import com.graphit.models.User;
+import com.graphit.utils.LruCache;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import java.util.Date;
+import java.util.Map;
 import javax.crypto.SecretKey;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -14,12 +17,24 @@ import org.springframework.stereotype.Service;
 @Service
 public class JwtTokenService {
 
-    @Value("${jwt.secret-key}")
-    private String secretKeyString;
+    private final SecretKey secretKey;
+    private final JwtParser parser;
+
+    // tokens whose signature was already checked, until they expire; each entry weighs 1
+    private final LruCache<String, VerifiedToken> verified;
+
+    public JwtTokenService(
+            @Value("${jwt.secret-key}") String secretKeyString,
+            @Value("${jwt.verified-cache.max-entries:10000}") long maxCachedTokens) {
+        this.secretKey = Keys.hmacShaKeyFor(secretKeyString.getBytes());
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(secretKey)
+                .build();
+        this.verified = new LruCache<>(maxCachedTokens, token -> 1);
+    }
 
 
     public String generateToken(User user) {
-        SecretKey secretKey = Keys.hmacShaKeyFor(secretKeyString.getBytes());
         return Jwts.builder()
                 .setSubject(user.getEmail())
                 .setIssuedAt(new Date())
@@ -29,14 +44,31 @@ public class JwtTokenService {
     }
 
 
+    /**
+     * Subject of a valid token. A token seen before is answered from the cache
+     * until its exp claim passes; after that it is parsed again, which throws
+     * ExpiredJwtException just like the first check would have.
+     */
     public String extractEmailFromToken(String token) {
-        SecretKey secretKey = Keys.hmacShaKeyFor(secretKeyString.getBytes());
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(secretKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        VerifiedToken cached = verified.get(token);
+        if (cached != null) {
+            if (System.currentTimeMillis() < cached.expiresAt) {
+                return cached.email;
+            }
+            verified.invalidate(token);
+        }
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        if (claims.getExpiration() != null && claims.getSubject() != null) {
+            verified.put(token, new VerifiedToken(claims.getSubject(), claims.getExpiration().getTime()));
+        }
         return claims.getSubject();
     }
 
+    public Map<String, Object> getStats() {
+        return verified.getStats();
+    }
+
+    private record VerifiedToken(String email, long expiresAt) {
+    }
+
 }
@@ -1,9 +1,40 @@
 package com.graphit.services;
 
 import com.graphit.models.Graph;
+import com.graphit.models.GraphOp;
+import com.graphit.models.GraphSummary;
+import com.graphit.models.StoredGraph;
 import com.graphit.models.User;
+import com.graphit.repositories.GraphRepository;
 import com.graphit.repositories.UserRepository;
+import com.graphit.utils.GraphCodec;
+import com.graphit.utils.LruCache;
+import com.graphit.utils.WriteBehindBuffer;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ArrayOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -11,25 +42,418 @@ public class UserService {
 
 
     private UserRepository userRepository;
+    private GraphRepository graphRepository;
+    private CompiledGraphCache graphCache;
+    private MongoTemplate mongoTemplate;
 
-    public UserService(UserRepository userRepository) {
+    // owners recently checked for an embedded graph map; one evicted is simply checked again
+    private final LruCache<String, Boolean> migratedOwners;
+
+    // full-map saves per owner waiting to be written; null when saves write through
+    private final WriteBehindBuffer<String, HashMap<String, Graph>> pendingSaves;
+
+    // login fields of users by email, each entry a few short strings weighing 1; saves invalidate,
+    // the TTL bounds staleness from other instances
+    private final LruCache<String, CachedUser> users;
+    private final long userTtlMillis;
+    private final AtomicLong expiredUsers = new AtomicLong();
+
+    public UserService(
+            UserRepository userRepository,
+            GraphRepository graphRepository,
+            CompiledGraphCache graphCache,
+            MongoTemplate mongoTemplate,
+            @Value("${graphs.write-behind.window-ms:0}") long writeBehindMillis,
+            @Value("${users.cache.max-entries:10000}") long maxCachedUsers,
+            @Value("${users.cache.ttl-seconds:300}") long userTtlSeconds,
+            @Value("${users.migrated.max-entries:10000}") long maxMigratedOwners) {
         this.userRepository = userRepository;
+        this.graphRepository = graphRepository;
+        this.graphCache = graphCache;
+        this.mongoTemplate = mongoTemplate;
+        this.pendingSaves = writeBehindMillis > 0 ? new WriteBehindBuffer<>(writeBehindMillis, (email, graphs) -> writeUserGraphs(graphs, email)) : null;
+        this.users = new LruCache<>(maxCachedUsers, user -> 1);
+        this.userTtlMillis = userTtlSeconds * 1000;
+        this.migratedOwners = new LruCache<>(maxMigratedOwners, migrated -> 1);
     }
 
-    public HashMap<String, Graph> getUserGraphs(String email) {
+    /**
+     * The user with this email, or null, served from the cache when possible.
+     * Only the ID, email and password hash are filled in, never the legacy
+     * embedded graphs, and every call gets its own instance.
+     */
+    public User findUserByEmail(String email) {
+        CachedUser cached = users.get(email);
+        if (cached != null) {
+            if (System.currentTimeMillis() < cached.expiresAt()) {
+                return cached.toUser();
+            }
+            users.invalidate(email);
+            expiredUsers.incrementAndGet();
+        }
         User user = userRepository.findUserByEmail(email);
-        if (user == null) {
-            throw new IllegalArgumentException("User not found"); // Handle the case where the user is null
+        if (user == null) { // misses are not cached, so a registration is visible at once
+            return null;
+        }
+        CachedUser fresh = new CachedUser(user.getID(), user.getEmail(), user.getPassword(), System.currentTimeMillis() + userTtlMillis);
+        users.put(email, fresh);
+        return fresh.toUser();
+    }
+
+    public User saveUser(User user) {
+        User saved = userRepository.save(user);
+        users.invalidate(user.getEmail());
+        return saved;
+    }
+
+    public Map<String, Object> getUserCacheStats() {
+        Map<String, Object> stats = users.getStats();
+        long hits = ((Number) stats.get("hits")).longValue() - expiredUsers.get(); // an expired entry was really a miss
+        long lookups = ((Number) stats.get("hits")).longValue() + ((Number) stats.get("misses")).longValue();
+        stats.put("hits", hits);
+        stats.put("misses", lookups - hits);
+        stats.put("expired", expiredUsers.get());
+        stats.put("hitRatio", lookups == 0 ? 0.0 : (double) hits / lookups);
+        stats.put("ttlSeconds", userTtlMillis / 1000);
+        return stats;
+    }
+
+    private record CachedUser(String id, String email, String password, long expiresAt) {
+        User toUser() {
+            User user = new User(email, password, null);
+            user.setID(id);
+            return user;
+        }
+    }
+
+    @PreDestroy
+    public void flushPendingSaves() {
+        if (pendingSaves != null) pendingSaves.close();
+    }
+
+    public Map<String, Object> getWriteBehindStats() {
+        return pendingSaves == null ? Map.of("enabled", false) : pendingSaves.getStats();
+    }
+
+    // a save still waiting in the write-behind buffer is newer than what the database has
+    private HashMap<String, Graph> pendingGraphs(String email) {
+        return pendingSaves == null ? null : pendingSaves.peek(email);
+    }
+
+    public HashMap<String, Graph> getUserGraphs(String email) {
+        ensureMigrated(email);
+        HashMap<String, Graph> pending = pendingGraphs(email);
+        if (pending != null) {
+            return new HashMap<>(pending);
+        }
+        HashMap<String, Graph> graphs = new HashMap<>();
+        for (StoredGraph stored : graphRepository.findGraphsByOwner(email)) {
+            graphs.put(stored.getGraphId(), stored.toGraph());
+        }
+        return graphs;
+    }
+
+    /**
+     * Validator for the user's whole set of graphs, hashed from each graph's ID,
+     * version and modification time. Only those fields are read, so checking it
+     * is much cheaper than loading the graphs. Null while a buffered save has not
+     * been written yet, since the database does not describe the graphs then.
+     */
+    public String getUserGraphsTag(String email) {
+        ensureMigrated(email);
+        if (pendingGraphs(email) != null) {
+            return null;
+        }
+        Query query = new Query(Criteria.where("owner").is(email)).with(Sort.by("graphId"));
+        query.fields().include("graphId", "version", "updatedAt").exclude("_id");
+        MessageDigest digest = sha256();
+        for (StoredGraph stored : mongoTemplate.find(query, StoredGraph.class)) {
+            long updatedAt = stored.getUpdatedAt() == null ? 0 : stored.getUpdatedAt().getTime();
+            String entry = stored.getGraphId() + "\u0000" + stored.getVersion() + "\u0000" + updatedAt + "\n";
+            digest.update(entry.getBytes(StandardCharsets.UTF_8));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest.digest(), 16));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Names, sizes and modification times of the user's graphs. The counts are
+     * computed by the database, so no node or edge data leaves it.
+     */
+    public List<GraphSummary> getUserGraphSummaries(String email) {
+        ensureMigrated(email);
+        if (pendingSaves != null) {
+            // summaries carry stored versions, so a buffered save has to be written first
+            pendingSaves.flush(email);
+        }
+        Aggregation summaries = Aggregation.newAggregation(
+            Aggregation.match(Criteria.where("owner").is(email)),
+            Aggregation.project("graphId", "name", "updatedAt", "version")
+                .andExclude("_id")
+                .and(ArrayOperators.Size.lengthOfArray(ConditionalOperators.ifNull("nodes").then(Collections.emptyList()))).as("nodeCount")
+                .and(ArrayOperators.Size.lengthOfArray(ConditionalOperators.ifNull("edges").then(Collections.emptyList()))).as("edgeCount")
+        );
+        return mongoTemplate.aggregate(summaries, StoredGraph.class, GraphSummary.class).getMappedResults();
+    }
+
+    /** One stored graph of the user, or null if they have no graph with that ID. */
+    public Graph getUserGraph(String email, String graphId) {
+        ensureMigrated(email);
+        HashMap<String, Graph> pending = pendingGraphs(email);
+        if (pending != null) {
+            return pending.get(graphId);
         }
-        return user.getGraphs();
+        StoredGraph stored = graphRepository.findGraphByOwnerAndGraphId(email, graphId);
+        return stored == null ? null : stored.toGraph();
     }
 
+    /** The stored graph with its version, or null; unlike getUserGraph this always reflects the database. */
+    public StoredGraph getVersionedGraph(String email, String graphId) {
+        ensureMigrated(email);
+        if (pendingSaves != null) {
+            pendingSaves.flush(email);
+        }
+        return graphRepository.findGraphByOwnerAndGraphId(email, graphId);
+    }
+
+    /**
+     * Writes one graph only if its stored version is still expectedVersion, in a
+     * single findAndModify that returns just the new version, so a save needs no
+     * prior read. Version 0 creates a graph that must not exist yet and a null
+     * expectedVersion writes unconditionally. On a mismatch this throws
+     * VersionConflictException with the current version; when expectedVersion
+     * names a version of a graph that does not exist it returns null.
+     */
+    public Long saveUserGraph(String email, String graphId, Graph graph, Long expectedVersion) {
+        ensureMigrated(email);
+        if (pendingSaves != null) {
+            pendingSaves.flush(email);
+        }
+        Query query = new Query(ownedGraph(email, graphId, expectedVersion));
+        query.fields().include("version");
+        Update update = new Update()
+            .set("name", graph.getName())
+            .set("nodes", graph.getNodes())
+            .set("edges", graph.getEdges())
+            .set("contentHash", contentHash(graph))
+            .currentDate("updatedAt")
+            .inc("version", 1);
+        boolean mayCreate = expectedVersion == null || expectedVersion == 0;
+
+        try {
+            StoredGraph saved = mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true).upsert(mayCreate), StoredGraph.class);
+            if (saved != null) {
+                graphCache.invalidateOwner(email);
+                return saved.getVersion();
+            }
+        } catch (DuplicateKeyException e) {
+            // creating with version 0 ran into a graph that already exists
+        }
+
+        // only a conflict pays for the extra read
+        Query current = new Query(ownedGraph(email, graphId));
+        current.fields().include("version");
+        StoredGraph stored = mongoTemplate.findOne(current, StoredGraph.class);
+        if (stored == null && !mayCreate) {
+            return null;
+        }
+        throw new VersionConflictException(stored == null ? 0 : stored.getVersion());
+    }
+
+    /**
+     * Replaces the user's whole set of graphs. With write-behind on, saves within
+     * one window are coalesced and only the last is written; reads see it meanwhile.
+     */
     public void updateUserGraphs(HashMap<String, Graph> graphs, String email) {
-        User user = userRepository.findUserByEmail(email);
+        ensureMigrated(email);
+        if (pendingSaves != null) {
+            pendingSaves.submit(email, graphs);
+        } else {
+            writeUserGraphs(graphs, email);
+        }
+        graphCache.invalidateOwner(email);
+    }
+
+    // upserts every given graph and deletes the rest
+    /**
+     * Only graphs whose content hash differs are rewritten, so the version and
+     * updatedAt of graphs the save did not touch stay as they were. Each graph
+     * gets two writes: an update guarded by the hash and an insert-only upsert
+     * for graphs that do not exist yet. Whatever order they run in, at most one
+     * of them changes anything.
+     */
+    private void writeUserGraphs(HashMap<String, Graph> graphs, String email) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StoredGraph.class);
+        Date now = new Date();
+        for (Map.Entry<String, Graph> entry : graphs.entrySet()) {
+            Graph graph = entry.getValue();
+            String hash = contentHash(graph);
+            bulk.updateOne(
+                new Query(ownedGraph(email, entry.getKey()).and("contentHash").ne(hash)),
+                new Update().set("name", graph.getName()).set("nodes", graph.getNodes()).set("edges", graph.getEdges())
+                    .set("contentHash", hash).set("updatedAt", now).inc("version", 1));
+            bulk.upsert(
+                new Query(ownedGraph(email, entry.getKey())),
+                new Update().setOnInsert("name", graph.getName()).setOnInsert("nodes", graph.getNodes()).setOnInsert("edges", graph.getEdges())
+                    .setOnInsert("contentHash", hash).setOnInsert("updatedAt", now).setOnInsert("version", 1L));
+        }
+        bulk.remove(new Query(Criteria.where("owner").is(email).and("graphId").nin(graphs.keySet())));
+        bulk.execute();
+    }
+
+    // SHA-256 of the stored fields in their binary encoding, which covers everything JSON carries
+    private static String contentHash(Graph graph) {
+        Graph content = new Graph();
+        content.setName(graph.getName());
+        content.setNodes(graph.getNodes());
+        content.setEdges(graph.getEdges());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(sha256().digest(GraphCodec.encode(content)));
+    }
+
+    private void ensureMigrated(String email) {
+        if (migratedOwners.get(email) != null) {
+            return;
+        }
+        User user = userRepository.findUserByEmail(email); // the cache leaves out the embedded graphs this needs
         if (user == null) {
             throw new IllegalArgumentException("User not found"); // Handle the case where the user is null
         }
-        user.setGraphs(graphs);
-        userRepository.save(user);
+        migrateEmbeddedGraphs(user);
+        migratedOwners.put(email, Boolean.TRUE);
+    }
+
+    /**
+     * Moves a user's graphs from the map embedded in their user document to the
+     * graphs collection, then drops the map. Copies are insert-only, so a graph
+     * that already lives in the collection is never overwritten by its stale
+     * embedded version and running this twice is harmless.
+     */
+    public void migrateEmbeddedGraphs(User user) {
+        HashMap<String, Graph> embedded = user.getGraphs();
+        if (embedded == null) {
+            return;
+        }
+        if (!embedded.isEmpty()) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StoredGraph.class);
+            Date now = new Date();
+            for (Map.Entry<String, Graph> entry : embedded.entrySet()) {
+                Graph graph = entry.getValue();
+                bulk.upsert(
+                    new Query(ownedGraph(user.getEmail(), entry.getKey())),
+                    new Update().setOnInsert("name", graph.getName()).setOnInsert("nodes", graph.getNodes())
+                        .setOnInsert("edges", graph.getEdges()).setOnInsert("updatedAt", now));
+            }
+            bulk.execute();
+        }
+        mongoTemplate.updateFirst(new Query(Criteria.where("email").is(user.getEmail())), new Update().unset("graphs"), User.class);
+        users.invalidate(user.getEmail());
+    }
+
+    /**
+     * Applies node and edge operations to one stored graph as targeted $push,
+     * $pull and $set updates, so a write is the size of the edit instead of
+     * the whole graph. The operations run in order in one bulk write.
+     * Adding a node or edge whose ID is taken, an edge whose endpoints are
+     * missing, or moving or deleting an ID that is not there, is skipped. The
+     * version goes up once per patch that changed something.
+     *
+     * With an expectedVersion every operation also requires the graph to be at
+     * that version, as saveUserGraph does. Returns the version after the patch,
+     * or null if the user has no such graph; throws VersionConflictException
+     * when the graph is at another version.
+     */
+    public Long patchUserGraph(String email, String graphId, List<GraphOp> ops, Long expectedVersion) {
+        ensureMigrated(email);
+        if (pendingSaves != null) {
+            // the buffered save would otherwise land after, and undo, this patch
+            pendingSaves.flush(email);
+        }
+
+        // embedded node and edge ids are stored as _id; edits drop contentHash, which only a full write can recompute,
+        // and leave the version to the single bump after the batch
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, StoredGraph.class);
+        for (GraphOp op : ops) {
+            switch (op.getOp() == null ? "" : op.getOp()) {
+                case "addNode":
+                    if (op.getNode() == null) throw new IllegalArgumentException("addNode needs a node");
+                    bulk.updateOne(
+                        new Query(ownedGraph(email, graphId, expectedVersion).and("nodes._id").ne(op.getNode().getID())),
+                        new Update().push("nodes", op.getNode()).currentDate("updatedAt").unset("contentHash"));
+                    break;
+                case "moveNode":
+                    if (op.getId() == null || op.getPos() == null) throw new IllegalArgumentException("moveNode needs an id and a pos");
+                    bulk.updateOne(
+                        new Query(ownedGraph(email, graphId, expectedVersion).and("nodes._id").is(op.getId())),
+                        new Update().set("nodes.$[n].pos", op.getPos()).currentDate("updatedAt").unset("contentHash").filterArray(Criteria.where("n._id").is(op.getId())));
+                    break;
+                case "deleteNode":
+                    if (op.getId() == null) throw new IllegalArgumentException("deleteNode needs an id");
+                    // edges touching the node go with it
+                    bulk.updateOne(
+                        new Query(ownedGraph(email, graphId, expectedVersion).and("nodes._id").is(op.getId())),
+                        new Update()
+                            .pull("nodes", new Document("_id", op.getId()))
+                            .pull("edges", new Document("$or", List.of(new Document("n1", op.getId()), new Document("n2", op.getId()))))
+                            .currentDate("updatedAt").unset("contentHash"));
+                    break;
+                case "addEdge":
+                    if (op.getEdge() == null) throw new IllegalArgumentException("addEdge needs an edge");
+                    bulk.updateOne(
+                        new Query(ownedGraph(email, graphId, expectedVersion)
+                            .and("edges._id").ne(op.getEdge().getID())
+                            .and("nodes._id").all(op.getEdge().getN1(), op.getEdge().getN2())),
+                        new Update().push("edges", op.getEdge()).currentDate("updatedAt").unset("contentHash"));
+                    break;
+                case "deleteEdge":
+                    if (op.getId() == null) throw new IllegalArgumentException("deleteEdge needs an id");
+                    bulk.updateOne(
+                        new Query(ownedGraph(email, graphId, expectedVersion).and("edges._id").is(op.getId())),
+                        new Update().pull("edges", new Document("_id", op.getId())).currentDate("updatedAt").unset("contentHash"));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown graph operation " + op.getOp());
+            }
+        }
+        if (!ops.isEmpty() && bulk.execute().getModifiedCount() > 0) {
+            graphCache.invalidateOwner(email);
+            Query query = new Query(ownedGraph(email, graphId));
+            query.fields().include("version");
+            StoredGraph patched = mongoTemplate.findAndModify(query, new Update().inc("version", 1), FindAndModifyOptions.options().returnNew(true), StoredGraph.class);
+            return patched == null ? null : patched.getVersion();
+        }
+
+        // nothing changed: the ops were all skipped, or the graph is missing or at another version
+        Query current = new Query(ownedGraph(email, graphId));
+        current.fields().include("version");
+        StoredGraph stored = mongoTemplate.findOne(current, StoredGraph.class);
+        if (stored == null) {
+            return null;
+        }
+        if (expectedVersion != null && stored.getVersion() != expectedVersion) {
+            throw new VersionConflictException(stored.getVersion());
+        }
+        return stored.getVersion();
+    }
+
+    private Criteria ownedGraph(String email, String graphId) {
+        return Criteria.where("owner").is(email).and("graphId").is(graphId);
+    }
+
+    // a null expectedVersion matches any version
+    private Criteria ownedGraph(String email, String graphId, Long expectedVersion) {
+        Criteria target = ownedGraph(email, graphId);
+        if (expectedVersion != null && expectedVersion == 0) {
+            target = target.and("version").in(0L, null); // graphs written before versioning count as 0
+        } else if (expectedVersion != null) {
+            target = target.and("version").is(expectedVersion);
+        }
+        return target;
     }
 }
@@ -0,0 +1,17 @@
+package com.graphit.services;
+
+// a conditional graph write found a different version than the caller expected
+public class VersionConflictException extends RuntimeException {
+
+    private final long currentVersion;
+
+    public VersionConflictException(long currentVersion) {
+        super("Graph is at version " + currentVersion);
+        this.currentVersion = currentVersion;
+    }
+
+    /** The stored version, or 0 if the graph does not exist. */
+    public long getCurrentVersion() {
+        return currentVersion;
+    }
+}
@@ -0,0 +1,39 @@
+package com.graphit.utils;
+
+import com.graphit.models.Graph;
+import java.io.IOException;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+// reads and writes Graph bodies sent or accepted as application/x-graphit-graph, see GraphCodec
+public class GraphBinaryMessageConverter extends AbstractHttpMessageConverter<Graph> {
+
+    public GraphBinaryMessageConverter() {
+        super(MediaType.parseMediaType(GraphCodec.MEDIA_TYPE));
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Graph.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected Graph readInternal(Class<? extends Graph> clazz, HttpInputMessage inputMessage) throws IOException {
+        byte[] bytes = inputMessage.getBody().readAllBytes();
+        try {
+            return GraphCodec.decode(bytes);
+        } catch (IllegalArgumentException e) {
+            throw new HttpMessageNotReadableException(e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Graph graph, HttpOutputMessage outputMessage) throws IOException {
+        byte[] bytes = GraphCodec.encode(graph);
+        outputMessage.getHeaders().setContentLength(bytes.length);
+        outputMessage.getBody().write(bytes);
+    }
+}
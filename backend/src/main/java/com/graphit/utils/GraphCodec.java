@@ -0,0 +1,333 @@
+package com.graphit.utils;
+
+import com.graphit.models.Edge;
+import com.graphit.models.Graph;
+import com.graphit.models.Node;
+import com.graphit.models.Position;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Compact binary form of a {@link Graph}, carrying the same fields as its JSON.
+ *
+ * Layout: the magic bytes "GB", a format version and a flags byte, then a
+ * dictionary of every distinct string (IDs, values, colors, the name) that
+ * the rest refers to by varint index, 0 meaning null. Nodes follow as their
+ * ID, value and color references, then their positions packed column-wise as
+ * floats, or as doubles when some coordinate would not survive the narrowing.
+ * Edges store the same three references and their endpoints as varint node
+ * indices; an endpoint naming no node keeps its string. decode(encode(g))
+ * always reproduces g.
+ */
+public final class GraphCodec {
+
+    public static final String MEDIA_TYPE = "application/x-graphit-graph";
+
+    private static final byte FORMAT_VERSION = 2; // 2 added edge colors
+    private static final int DOUBLE_POSITIONS = 1;
+    private static final int NULL_POSITIONS = 2; // a bitmap of present positions precedes them
+    private static final int NULL_NODES = 4;
+    private static final int NULL_EDGES = 8;
+
+    private GraphCodec() {
+    }
+
+    public static byte[] encode(Graph graph) {
+        ArrayList<Node> nodes = graph.getNodes() == null ? new ArrayList<>() : graph.getNodes();
+        ArrayList<Edge> edges = graph.getEdges() == null ? new ArrayList<>() : graph.getEdges();
+        int flags = (graph.getNodes() == null ? NULL_NODES : 0) | (graph.getEdges() == null ? NULL_EDGES : 0);
+
+        Dictionary dictionary = new Dictionary();
+        HashMap<String, Integer> nodeIndex = new HashMap<>(nodes.size() * 2);
+        for (int i = 0; i < nodes.size(); i++) {
+            Node node = nodes.get(i);
+            nodeIndex.putIfAbsent(node.getID(), i);
+            Position pos = node.getPos();
+            if (pos == null) {
+                flags |= NULL_POSITIONS;
+            } else if ((float) pos.getX() != pos.getX() || (float) pos.getY() != pos.getY()) {
+                flags |= DOUBLE_POSITIONS;
+            }
+        }
+
+        Writer body = new Writer(16 + nodes.size() * 16 + edges.size() * 8);
+        body.ref(dictionary, graph.getID());
+        body.ref(dictionary, graph.getName());
+        body.varint(nodes.size());
+        for (Node node : nodes) {
+            body.ref(dictionary, node.getID());
+            body.ref(dictionary, node.getValue());
+            body.ref(dictionary, node.getCustomColor());
+        }
+        if ((flags & NULL_POSITIONS) != 0) {
+            byte[] present = new byte[(nodes.size() + 7) / 8];
+            for (int i = 0; i < nodes.size(); i++) {
+                if (nodes.get(i).getPos() != null) present[i >> 3] |= 1 << (i & 7);
+            }
+            body.bytes(present);
+        }
+        for (Node node : nodes) {
+            Position pos = node.getPos();
+            if (pos == null) continue;
+            if ((flags & DOUBLE_POSITIONS) != 0) {
+                body.float64(pos.getX());
+                body.float64(pos.getY());
+            } else {
+                body.float32((float) pos.getX());
+                body.float32((float) pos.getY());
+            }
+        }
+        body.varint(edges.size());
+        for (Edge edge : edges) {
+            body.ref(dictionary, edge.getID());
+            body.ref(dictionary, edge.getValue());
+            body.ref(dictionary, edge.getCustomColor());
+            body.endpoint(dictionary, nodeIndex, edge.getN1());
+            body.endpoint(dictionary, nodeIndex, edge.getN2());
+        }
+
+        Writer out = new Writer(body.size + dictionary.bytes + 8);
+        out.bytes(new byte[] {'G', 'B', FORMAT_VERSION, (byte) flags});
+        out.varint(dictionary.strings.size());
+        for (byte[] utf8 : dictionary.strings) {
+            out.varint(utf8.length);
+            out.bytes(utf8);
+        }
+        out.bytes(Arrays.copyOf(body.buf, body.size));
+        return Arrays.copyOf(out.buf, out.size);
+    }
+
+    /** Throws IllegalArgumentException when the bytes are not a graph written by encode. */
+    public static Graph decode(byte[] bytes) {
+        Reader in = new Reader(bytes);
+        if (in.u8() != 'G' || in.u8() != 'B') {
+            throw new IllegalArgumentException("Not a binary graph");
+        }
+        if (in.u8() != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported binary graph version");
+        }
+        int flags = in.u8();
+
+        String[] dictionary = new String[in.count(1)];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = in.utf8(in.count(1));
+        }
+
+        Graph graph = new Graph();
+        graph.setID(in.ref(dictionary));
+        graph.setName(in.ref(dictionary));
+
+        int n = in.count(3);
+        ArrayList<Node> nodes = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Node node = new Node();
+            node.setID(in.ref(dictionary));
+            node.setValue(in.ref(dictionary));
+            node.setCustomColor(in.ref(dictionary));
+            nodes.add(node);
+        }
+        byte[] present = (flags & NULL_POSITIONS) != 0 ? in.bytes((n + 7) / 8) : null;
+        for (int i = 0; i < n; i++) {
+            if (present != null && (present[i >> 3] & (1 << (i & 7))) == 0) {
+                nodes.get(i).setPos(null);
+            } else if ((flags & DOUBLE_POSITIONS) != 0) {
+                nodes.get(i).setPos(new Position(in.float64(), in.float64()));
+            } else {
+                nodes.get(i).setPos(new Position(in.float32(), in.float32()));
+            }
+        }
+
+        int m = in.count(5);
+        ArrayList<Edge> edges = new ArrayList<>(m);
+        for (int i = 0; i < m; i++) {
+            Edge edge = new Edge();
+            edge.setID(in.ref(dictionary));
+            edge.setValue(in.ref(dictionary));
+            edge.setCustomColor(in.ref(dictionary));
+            edge.setN1(in.endpoint(dictionary, nodes));
+            edge.setN2(in.endpoint(dictionary, nodes));
+            edges.add(edge);
+        }
+        if (!in.atEnd()) {
+            throw new IllegalArgumentException("Trailing bytes after binary graph");
+        }
+
+        graph.setNodes((flags & NULL_NODES) != 0 ? null : nodes);
+        graph.setEdges((flags & NULL_EDGES) != 0 ? null : edges);
+        return graph;
+    }
+
+    private static class Dictionary {
+        final HashMap<String, Integer> index = new HashMap<>();
+        final ArrayList<byte[]> strings = new ArrayList<>();
+        int bytes;
+
+        int ref(String s) {
+            if (s == null) return 0;
+            Integer ref = index.get(s);
+            if (ref == null) {
+                byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+                strings.add(utf8);
+                bytes += utf8.length + 5;
+                ref = strings.size();
+                index.put(s, ref);
+            }
+            return ref;
+        }
+    }
+
+    private static class Writer {
+        byte[] buf;
+        int size;
+
+        Writer(int capacity) {
+            buf = new byte[Math.max(capacity, 16)];
+        }
+
+        void ensure(int extra) {
+            if (size + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + extra));
+            }
+        }
+
+        void varint(int v) {
+            ensure(5);
+            while ((v & ~0x7F) != 0) {
+                buf[size++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[size++] = (byte) v;
+        }
+
+        void ref(Dictionary dictionary, String s) {
+            varint(dictionary.ref(s));
+        }
+
+        // node index + 1, or 0 followed by the string when no node has that ID
+        void endpoint(Dictionary dictionary, HashMap<String, Integer> nodeIndex, String nodeId) {
+            Integer node = nodeId == null ? null : nodeIndex.get(nodeId);
+            if (node != null) {
+                varint(node + 1);
+            } else {
+                varint(0);
+                ref(dictionary, nodeId);
+            }
+        }
+
+        void bytes(byte[] b) {
+            ensure(b.length);
+            System.arraycopy(b, 0, buf, size, b.length);
+            size += b.length;
+        }
+
+        void float32(float f) {
+            int bits = Float.floatToRawIntBits(f);
+            ensure(4);
+            for (int shift = 0; shift < 32; shift += 8) {
+                buf[size++] = (byte) (bits >>> shift);
+            }
+        }
+
+        void float64(double d) {
+            long bits = Double.doubleToRawLongBits(d);
+            ensure(8);
+            for (int shift = 0; shift < 64; shift += 8) {
+                buf[size++] = (byte) (bits >>> shift);
+            }
+        }
+    }
+
+    private static class Reader {
+        final byte[] buf;
+        int pos;
+
+        Reader(byte[] buf) {
+            this.buf = buf;
+        }
+
+        boolean atEnd() {
+            return pos == buf.length;
+        }
+
+        int u8() {
+            if (pos >= buf.length) {
+                throw new IllegalArgumentException("Truncated binary graph");
+            }
+            return buf[pos++] & 0xFF;
+        }
+
+        int varint() {
+            int v = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = u8();
+                v |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    if (v < 0) break;
+                    return v;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in binary graph");
+        }
+
+        // a length or element count, checked against what is left so bad input cannot force huge allocations
+        int count(int minBytesEach) {
+            int count = varint();
+            if ((long) count * minBytesEach > buf.length - pos) {
+                throw new IllegalArgumentException("Truncated binary graph");
+            }
+            return count;
+        }
+
+        String ref(String[] dictionary) {
+            int ref = varint();
+            if (ref > dictionary.length) {
+                throw new IllegalArgumentException("Bad string reference in binary graph");
+            }
+            return ref == 0 ? null : dictionary[ref - 1];
+        }
+
+        String endpoint(String[] dictionary, ArrayList<Node> nodes) {
+            int node = varint();
+            if (node == 0) {
+                return ref(dictionary);
+            }
+            if (node > nodes.size()) {
+                throw new IllegalArgumentException("Bad node reference in binary graph");
+            }
+            return nodes.get(node - 1).getID();
+        }
+
+        byte[] bytes(int length) {
+            if (length > buf.length - pos) {
+                throw new IllegalArgumentException("Truncated binary graph");
+            }
+            byte[] b = Arrays.copyOfRange(buf, pos, pos + length);
+            pos += length;
+            return b;
+        }
+
+        String utf8(int length) {
+            String s = new String(buf, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return s;
+        }
+
+        float float32() {
+            int bits = 0;
+            for (int shift = 0; shift < 32; shift += 8) {
+                bits |= u8() << shift;
+            }
+            return Float.intBitsToFloat(bits);
+        }
+
+        double float64() {
+            long bits = 0;
+            for (int shift = 0; shift < 64; shift += 8) {
+                bits |= (long) u8() << shift;
+            }
+            return Double.longBitsToDouble(bits);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.graphit.utils;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Coalescing write-behind buffer. The first write to a key schedules a flush
+ * windowMillis later; writes arriving before then only replace the pending
+ * value, so a burst of writes reaches the writer once, with the latest value.
+ *
+ * Flushes of the same key run one at a time, so an older value can never land
+ * after a newer one; flushes of different keys only contend when their keys
+ * share one of a fixed set of lock stripes. A value stays visible through peek
+ * until the writer has stored it. A failed flush keeps the value and retries one
+ * window later. close() writes everything still pending, retrying failures a
+ * few times before reporting the keys it had to give up on, and writes after
+ * close go straight to the writer.
+ */
+public class WriteBehindBuffer<K, V> {
+
+    private static final int LOCK_STRIPES = 64;
+    private static final int CLOSE_ATTEMPTS = 3;
+    private static final long CLOSE_RETRY_MILLIS = 200;
+
+    private final long windowMillis;
+    private final BiConsumer<K, V> writer;
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final HashMap<K, V> pending = new HashMap<>();
+    private final HashSet<K> scheduled = new HashSet<>();
+    private final Object[] flushLocks = new Object[LOCK_STRIPES];
+    private boolean closed;
+
+    private long submitted;
+    private long coalesced;
+    private long flushed;
+    private long failures;
+    private long lost;
+
+    public WriteBehindBuffer(long windowMillis, BiConsumer<K, V> writer) {
+        this.windowMillis = windowMillis;
+        this.writer = writer;
+        this.scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            flushLocks[i] = new Object();
+        }
+    }
+
+    public void submit(K key, V value) {
+        synchronized (this) {
+            if (!closed) {
+                submitted++;
+                if (pending.put(key, value) != null) {
+                    coalesced++;
+                }
+                schedule(key);
+                return;
+            }
+        }
+        writer.accept(key, value);
+    }
+
+    /** The value waiting to be written for key, or null if there is none. */
+    public synchronized V peek(K key) {
+        return pending.get(key);
+    }
+
+    /**
+     * Writes key's pending value now, e.g. before a write that must not be
+     * overtaken by it. Returns false if the write failed and the value is still pending.
+     */
+    public boolean flush(K key) {
+        synchronized (flushLocks[Math.floorMod(key.hashCode(), LOCK_STRIPES)]) {
+            V value;
+            synchronized (this) {
+                scheduled.remove(key);
+                value = pending.get(key);
+            }
+            if (value == null) {
+                return true;
+            }
+            try {
+                writer.accept(key, value);
+            } catch (RuntimeException e) {
+                System.out.println(e);
+                synchronized (this) {
+                    failures++;
+                    if (!closed) schedule(key);
+                }
+                return false;
+            }
+            synchronized (this) {
+                // a newer value that arrived during the write stays pending with its own flush
+                if (pending.get(key) == value) pending.remove(key);
+                flushed++;
+            }
+            return true;
+        }
+    }
+
+    public void close() {
+        HashSet<K> keys;
+        synchronized (this) {
+            closed = true;
+            keys = new HashSet<>(pending.keySet());
+        }
+        scheduler.shutdown();
+        // nothing runs after close, so failed writes are retried here before giving up
+        for (int attempt = 1; attempt <= CLOSE_ATTEMPTS && !keys.isEmpty(); attempt++) {
+            keys.removeIf(this::flush);
+            if (!keys.isEmpty() && attempt < CLOSE_ATTEMPTS) {
+                try {
+                    Thread.sleep(CLOSE_RETRY_MILLIS * attempt);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        if (!keys.isEmpty()) {
+            synchronized (this) {
+                lost += keys.size();
+            }
+            System.out.println("Write-behind buffer closed with unwritten values for " + keys);
+        }
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        HashMap<String, Object> stats = new HashMap<>();
+        stats.put("queueDepth", pending.size());
+        stats.put("windowMillis", windowMillis);
+        stats.put("submitted", submitted);
+        stats.put("coalesced", coalesced);
+        stats.put("flushed", flushed);
+        stats.put("failures", failures);
+        stats.put("lost", lost);
+        return stats;
+    }
+
+    // caller holds the monitor
+    private void schedule(K key) {
+        if (scheduled.add(key)) {
+            scheduler.schedule(() -> flush(key), windowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+}
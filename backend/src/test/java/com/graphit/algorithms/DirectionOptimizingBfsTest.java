@@ -0,0 +1,82 @@
+package com.graphit.algorithms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.graphit.models.CompiledGraph;
+import com.graphit.models.Edge;
+import com.graphit.models.Graph;
+import com.graphit.models.Node;
+import com.graphit.models.Position;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+class DirectionOptimizingBfsTest {
+
+    // dense random graphs with parallel edges, so most runs switch to bottom-up steps
+    @Test
+    void matchesQueueBasedBfs() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        Random random = new Random(5);
+        try {
+            for (int trial = 0; trial < 500; trial++) {
+                int n = 1 + random.nextInt(80);
+                Graph graph = randomGraph(random, n, random.nextInt(n * n / 2 + 2));
+                for (boolean directed : new boolean[] {true, false}) {
+                    CompiledGraph g = graph.compile(directed, false);
+                    int origin = random.nextInt(n);
+                    for (String target : new String[] {"none", "2"}) {
+                        assertEquals(queueBfs(g, origin, target), DirectionOptimizingBfs.run(g, origin, target, pool));
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static ArrayList<String> queueBfs(CompiledGraph g, int origin, String target) {
+        ArrayList<String> ids = new ArrayList<>();
+        boolean[] seen = new boolean[g.nodeCount()];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        seen[origin] = true;
+        ids.add(g.nodeId(origin));
+        if (target.equals(g.nodeValue(origin))) return ids;
+        queue.add(origin);
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+            for (int a = g.arcStart(u); a < g.arcEnd(u); a++) {
+                int v = g.arcTarget(a);
+                if (seen[v]) continue;
+                seen[v] = true;
+                ids.add(g.edgeId(g.arcEdge(a)));
+                ids.add(g.nodeId(v));
+                if (target.equals(g.nodeValue(v))) return ids;
+                queue.add(v);
+            }
+        }
+        return ids;
+    }
+
+    private static Graph randomGraph(Random random, int n, int m) {
+        ArrayList<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            nodes.add(new Node("n" + i, Integer.toString(random.nextInt(3)), new Position(), ""));
+        }
+        ArrayList<Edge> edges = new ArrayList<>();
+        for (int e = 0; e < m; e++) {
+            Edge edge = new Edge();
+            edge.setID("e" + e);
+            edge.setValue("1");
+            edge.setN1("n" + random.nextInt(n));
+            edge.setN2("n" + random.nextInt(n));
+            edges.add(edge);
+        }
+        Graph graph = new Graph();
+        graph.setNodes(nodes);
+        graph.setEdges(edges);
+        return graph;
+    }
+}
@@ -0,0 +1,157 @@
+package com.graphit.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.graphit.models.Graph;
+import com.graphit.models.QueryReq;
+import com.graphit.services.AiService;
+import com.graphit.utils.AiUtil;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// 1k open /api/ai/query streams against a model that answers one chunk, then stalls until released.
+// Each stream is read to the end by a blocking caller, as a request thread would, once on platform
+// threads and once on virtual threads (spring.threads.virtual.enabled)
+class AiControllerLoadTest {
+
+    private static final int STREAMS = 1000;
+
+    @Test
+    void platformThreadsHoldOneThreadPerStream() throws Exception {
+        long threadsAdded = openStreams(Executors.newCachedThreadPool(), "platform threads");
+        assertTrue(threadsAdded >= STREAMS, "each blocked reader should hold a platform thread");
+    }
+
+    @Test
+    void virtualThreadsHoldStreamsOnFewPlatformThreads() throws Exception {
+        long threadsAdded = openStreams(Executors.newVirtualThreadPerTaskExecutor(), "virtual threads");
+        assertTrue(threadsAdded < STREAMS / 2, "blocked virtual threads should not pin platform threads");
+    }
+
+    @Test
+    void cancelledStreamsGiveTheirPermitsBack() {
+        AiController controller = new AiController(aiService(prompt -> Flux.never()), 2);
+        Disposable first = controller.query(queryReq()).subscribe();
+        Disposable second = controller.query(queryReq()).subscribe();
+        assertTrue(rejected(controller.query(queryReq())));
+
+        first.dispose(); // what a client disconnect does
+        Disposable third = controller.query(queryReq()).subscribe();
+        assertTrue(rejected(controller.query(queryReq())));
+
+        second.dispose();
+        third.dispose();
+        assertFalse(rejected(controller.query(queryReq())));
+    }
+
+    // returns how many platform threads the open streams added
+    private static long openStreams(ExecutorService readers, String mode) throws Exception {
+        CompletableFuture<Void> release = new CompletableFuture<>();
+        CountDownLatch open = new CountDownLatch(STREAMS);
+        AiController controller = new AiController(aiService(prompt -> Flux.concat(
+                Mono.just(chunk("first")).doOnSubscribe(subscription -> open.countDown()),
+                Mono.fromFuture(release).then(Mono.just(chunk("last"))))), STREAMS);
+
+        long baseThreads = platformThreads();
+        long baseHeap = usedHeap();
+        List<Future<List<String>>> streams = new ArrayList<>();
+        try {
+            for (int i = 0; i < STREAMS; i++) {
+                streams.add(readers.submit(() -> controller.query(queryReq()).collectList().block()));
+            }
+            assertTrue(open.await(60, TimeUnit.SECONDS), "all streams should open");
+            long threadsAdded = platformThreads() - baseThreads;
+            long heapAdded = usedHeap() - baseHeap;
+            System.out.printf("%d streams on %s: %d platform threads added, %d KB heap added%n",
+                    STREAMS, mode, threadsAdded, heapAdded / 1024);
+
+            // every permit is taken, so the next query is turned away
+            assertTrue(rejected(controller.query(queryReq())));
+
+            release.complete(null);
+            for (Future<List<String>> stream : streams) {
+                assertEquals(List.of("first", "last"), stream.get(60, TimeUnit.SECONDS));
+            }
+            assertFalse(rejected(controller.query(queryReq())));
+            return threadsAdded;
+        } finally {
+            release.complete(null);
+            readers.shutdownNow();
+        }
+    }
+
+    // true when the query was refused with 503; a stream that was let through is cancelled after a moment
+    private static boolean rejected(Flux<String> stream) {
+        try {
+            stream.take(Duration.ofMillis(100)).blockLast();
+            return false;
+        } catch (ResponseStatusException e) {
+            assertEquals(503, e.getStatusCode().value());
+            return true;
+        }
+    }
+
+    private static AiService aiService(StreamingModel model) {
+        ChatModel chatModel = new ChatModel() {
+            @Override
+            public ChatResponse call(Prompt prompt) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Flux<ChatResponse> stream(Prompt prompt) {
+                return model.stream(prompt);
+            }
+        };
+        return new AiService(chatModel, new AiUtil(), 60, 256);
+    }
+
+    private interface StreamingModel {
+        Flux<ChatResponse> stream(Prompt prompt);
+    }
+
+    private static ChatResponse chunk(String content) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(content))));
+    }
+
+    private static QueryReq queryReq() {
+        QueryReq req = new QueryReq();
+        req.setUserPrompt("Which node has the most edges?");
+        Graph graph = new Graph();
+        graph.setNodes(new ArrayList<>());
+        graph.setEdges(new ArrayList<>());
+        req.setGraph(graph);
+        req.setHistory("");
+        return req;
+    }
+
+    // the thread MXBean counts platform threads only
+    private static long platformThreads() {
+        return ManagementFactory.getThreadMXBean().getThreadCount();
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
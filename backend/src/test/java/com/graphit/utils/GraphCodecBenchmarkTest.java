@@ -0,0 +1,85 @@
+package com.graphit.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.graphit.models.Edge;
+import com.graphit.models.Graph;
+import com.graphit.models.Node;
+import com.graphit.models.Position;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+// size and round-trip time of the binary encoding against the JSON the endpoints send otherwise
+class GraphCodecBenchmarkTest {
+
+    // configured like Spring Boot's mapper, which ignores the derived nodeValues/nodeIDs on read
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Test
+    void binaryIsSmallerAndFasterThanJson() throws Exception {
+        Random random = new Random(1);
+        int[] sizes = {100, 20000};
+        int[] repetitions = {5000, 10};
+        for (int k = 0; k < sizes.length; k++) {
+            int n = sizes[k];
+            int reps = repetitions[k];
+            Graph graph = randomGraph(random, n);
+            byte[] json = objectMapper.writeValueAsBytes(graph);
+            byte[] binary = GraphCodec.encode(graph);
+            assertEquals(objectMapper.writeValueAsString(graph), objectMapper.writeValueAsString(GraphCodec.decode(binary)));
+
+            long jsonNanos = 0;
+            long binaryNanos = 0;
+            for (int round = 0; round < 3; round++) { // earlier rounds warm up the JIT, the last one counts
+                long start = System.nanoTime();
+                for (int i = 0; i < reps; i++) {
+                    objectMapper.readValue(objectMapper.writeValueAsBytes(graph), Graph.class);
+                }
+                jsonNanos = System.nanoTime() - start;
+                start = System.nanoTime();
+                for (int i = 0; i < reps; i++) {
+                    GraphCodec.decode(GraphCodec.encode(graph));
+                }
+                binaryNanos = System.nanoTime() - start;
+            }
+
+            System.out.printf("%d nodes: json %d B, binary %d B (%.1f%%), round trip json %.1f us, binary %.1f us (%.1fx)%n",
+                    n, json.length, binary.length, 100.0 * binary.length / json.length,
+                    jsonNanos / 1e3 / reps, binaryNanos / 1e3 / reps, (double) jsonNanos / binaryNanos);
+            assertTrue(binary.length * 100L < json.length * 35L, "binary should stay near 30% of the JSON size");
+            assertTrue(binaryNanos < jsonNanos, "binary round trip should beat JSON");
+        }
+    }
+
+    // IDs are UUIDs and positions whole pixels, as the editor creates them
+    private static Graph randomGraph(Random random, int n) {
+        String[] colors = {"", "#ff0000", "#00ff00"};
+        ArrayList<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Position pos = new Position(Math.round(random.nextDouble() * 1000), Math.round(random.nextDouble() * 800));
+            nodes.add(new Node(UUID.randomUUID().toString(), Integer.toString(random.nextInt(100)), pos, colors[random.nextInt(3)]));
+        }
+        ArrayList<Edge> edges = new ArrayList<>();
+        for (int e = 0; e < n * 2; e++) {
+            Edge edge = new Edge();
+            edge.setID(UUID.randomUUID().toString());
+            edge.setValue(Integer.toString(random.nextInt(50)));
+            edge.setCustomColor(colors[random.nextInt(3)]);
+            edge.setN1(nodes.get(random.nextInt(n)).getID());
+            edge.setN2(nodes.get(random.nextInt(n)).getID());
+            edges.add(edge);
+        }
+        Graph graph = new Graph();
+        graph.setID(UUID.randomUUID().toString());
+        graph.setName("benchmark");
+        graph.setNodes(nodes);
+        graph.setEdges(edges);
+        return graph;
+    }
+}
@@ -0,0 +1,79 @@
+package com.graphit.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.graphit.models.Edge;
+import com.graphit.models.Graph;
+import com.graphit.models.Node;
+import com.graphit.models.Position;
+import java.util.ArrayList;
+import org.junit.jupiter.api.Test;
+
+class GraphCodecTest {
+
+    @Test
+    void roundTripKeepsColorsOfNodesAndEdges() {
+        Graph graph = new Graph();
+        graph.setID("g");
+        graph.setName("colored");
+        ArrayList<Node> nodes = new ArrayList<>();
+        nodes.add(node("a", "1", new Position(10, 20), "#ff0000"));
+        nodes.add(node("b", "2", new Position(0.1, 30), ""));
+        nodes.add(node("c", null, null, null));
+        graph.setNodes(nodes);
+        ArrayList<Edge> edges = new ArrayList<>();
+        edges.add(edge("e1", "5", "a", "b", "#00ff00"));
+        edges.add(edge("e2", "7", "b", "c", ""));
+        edges.add(edge("e3", "1", "c", "missing", null));
+        graph.setEdges(edges);
+
+        Graph decoded = GraphCodec.decode(GraphCodec.encode(graph));
+
+        assertEquals(graph.getID(), decoded.getID());
+        assertEquals(graph.getName(), decoded.getName());
+        assertEquals(nodes.size(), decoded.getNodes().size());
+        for (int i = 0; i < nodes.size(); i++) {
+            Node expected = nodes.get(i);
+            Node actual = decoded.getNodes().get(i);
+            assertEquals(expected.getID(), actual.getID());
+            assertEquals(expected.getValue(), actual.getValue());
+            assertEquals(expected.getCustomColor(), actual.getCustomColor());
+            if (expected.getPos() == null) {
+                assertNull(actual.getPos());
+            } else {
+                assertEquals(expected.getPos().getX(), actual.getPos().getX());
+                assertEquals(expected.getPos().getY(), actual.getPos().getY());
+            }
+        }
+        assertEquals(edges.size(), decoded.getEdges().size());
+        for (int i = 0; i < edges.size(); i++) {
+            Edge expected = edges.get(i);
+            Edge actual = decoded.getEdges().get(i);
+            assertEquals(expected.getID(), actual.getID());
+            assertEquals(expected.getValue(), actual.getValue());
+            assertEquals(expected.getCustomColor(), actual.getCustomColor());
+            assertEquals(expected.getN1(), actual.getN1());
+            assertEquals(expected.getN2(), actual.getN2());
+        }
+    }
+
+    private static Node node(String id, String value, Position pos, String color) {
+        Node node = new Node();
+        node.setID(id);
+        node.setValue(value);
+        node.setPos(pos);
+        node.setCustomColor(color);
+        return node;
+    }
+
+    private static Edge edge(String id, String value, String n1, String n2, String color) {
+        Edge edge = new Edge();
+        edge.setID(id);
+        edge.setValue(value);
+        edge.setN1(n1);
+        edge.setN2(n2);
+        edge.setCustomColor(color);
+        return edge;
+    }
+}
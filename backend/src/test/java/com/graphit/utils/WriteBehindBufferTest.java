@@ -0,0 +1,67 @@
+package com.graphit.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class WriteBehindBufferTest {
+
+    @Test
+    void flushOfOneKeyDoesNotWaitForAnotherKeysWrite() throws Exception {
+        CountDownLatch slowStarted = new CountDownLatch(1);
+        CountDownLatch releaseSlow = new CountDownLatch(1);
+        List<String> writes = Collections.synchronizedList(new ArrayList<>());
+        WriteBehindBuffer<String, String> buffer = new WriteBehindBuffer<>(60_000, (key, value) -> {
+            if (key.equals("slow")) {
+                slowStarted.countDown();
+                try {
+                    releaseSlow.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            writes.add(key + "=" + value);
+        });
+        buffer.submit("slow", "1");
+        buffer.submit("fast", "2");
+        Thread slow = new Thread(() -> buffer.flush("slow"));
+        slow.start();
+        assertTrue(slowStarted.await(5, TimeUnit.SECONDS));
+
+        assertTrue(buffer.flush("fast"));
+        assertEquals(List.of("fast=2"), writes);
+
+        releaseSlow.countDown();
+        slow.join();
+        buffer.close();
+    }
+
+    @Test
+    void closeRetriesFailedWritesAndReportsWhatItGivesUpOn() {
+        AtomicInteger flaky = new AtomicInteger(1);
+        List<String> writes = Collections.synchronizedList(new ArrayList<>());
+        WriteBehindBuffer<String, String> buffer = new WriteBehindBuffer<>(60_000, (key, value) -> {
+            if (key.equals("broken") || (key.equals("flaky") && flaky.getAndDecrement() > 0)) {
+                throw new IllegalStateException("write failed");
+            }
+            writes.add(key + "=" + value);
+        });
+        buffer.submit("flaky", "1");
+        buffer.submit("broken", "2");
+
+        buffer.close();
+
+        assertEquals(List.of("flaky=1"), writes);
+        assertNull(buffer.peek("flaky"));
+        assertEquals("2", buffer.peek("broken"));
+        assertEquals(1L, buffer.getStats().get("lost"));
+    }
+}